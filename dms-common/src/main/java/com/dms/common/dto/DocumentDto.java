@@ -16,6 +16,7 @@ public class DocumentDto {
     private UUID id;
     private String title;
     private String translatedTitle;
+    private String translationStatus; // PENDING while translatedTitle is being computed
     private String description;
     private String content;
     private String type;
@@ -33,4 +34,5 @@ public class DocumentDto {
     private UUID updatedBy;
     private String createdByName;
     private String updatedByName;
+    private Long viewCount; // Only populated for single-document and trending responses
 }
@@ -0,0 +1,25 @@
+package com.dms.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentEventDto {
+    public enum Type { CREATED, UPDATED, DELETED }
+    
+    private Type type;
+    private UUID documentId;
+    private UUID departmentId;
+    private UUID previousDepartmentId; // Set when an update moved the document to another department
+    private String title;
+    private UUID userId;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,27 @@
+package com.dms.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentVersionDto {
+    private UUID documentId;
+    private int versionNumber;
+    private String title;
+    private String description;
+    private String content; // Only populated when a single version is fetched
+    private String s3Key;
+    private String fileName;
+    private String fileType;
+    private Long fileSize;
+    private LocalDateTime createdAt;
+    private UUID createdBy;
+}
@@ -0,0 +1,28 @@
+package com.dms.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionJobDto {
+    private UUID id;
+    private String source; // Server-side directory, or the stored copy of an uploaded ZIP
+    private UUID defaultDepartmentId; // Used for manifest entries without a departmentId
+    private String defaultType; // Used for manifest entries without a type
+    private String status;
+    private Long totalItems;
+    private Long completedItems;
+    private Long failedItems;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private UUID createdBy;
+}
@@ -0,0 +1,21 @@
+package com.dms.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadDto {
+    private String fileName;
+    private String contentType;
+    private Long fileSize; // Optional, signed into the URL when given
+    private String key;
+    private String uploadUrl;
+    private Instant expiresAt;
+}
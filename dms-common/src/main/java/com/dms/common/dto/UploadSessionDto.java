@@ -0,0 +1,24 @@
+package com.dms.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDto {
+    private UUID id;
+    private UUID documentId;
+    private String fileName;
+    private String contentType;
+    private Long fileSize;
+    private Long offset; // Bytes received so far; the next chunk must start here
+    private Long chunkSize; // Every chunk but the last must be exactly this size
+    private Instant expiresAt;
+}
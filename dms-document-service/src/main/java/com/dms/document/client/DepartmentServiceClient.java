@@ -7,7 +7,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 import java.util.UUID;
 
-@FeignClient(name = "dms-user-service")
+@FeignClient(name = "dms-user-service", contextId = "departmentServiceClient")
 public interface DepartmentServiceClient {
     @GetMapping("/api/departments/{id}")
     DepartmentDto getDepartmentById(@PathVariable UUID id);
@@ -7,7 +7,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 import java.util.UUID;
 
-@FeignClient(name = "dms-user-service")
+@FeignClient(name = "dms-user-service", contextId = "userServiceClient")
 public interface UserServiceClient {
     @GetMapping("/api/users/{id}")
     UserDto getUserById(@PathVariable UUID id);
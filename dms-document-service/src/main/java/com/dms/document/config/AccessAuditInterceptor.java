@@ -0,0 +1,59 @@
+package com.dms.document.config;
+
+import com.dms.document.entity.AccessAuditRecord;
+import com.dms.document.service.AccessAuditService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class AccessAuditInterceptor implements HandlerInterceptor {
+    private final AccessAuditService accessAuditService;
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        
+        try {
+            accessAuditService.record(AccessAuditRecord.builder()
+                .occurredAt(LocalDateTime.now())
+                .userId(request.getHeader("X-User-Id"))
+                .role(request.getHeader("X-User-Role"))
+                .departmentIds(request.getHeader("X-User-Department-Ids"))
+                .action(handlerMethod.getMethod().getName())
+                .httpMethod(request.getMethod())
+                .path(request.getRequestURI())
+                .documentId(documentId(request))
+                .status(ex != null && response.getStatus() < 400 ? 500 : response.getStatus())
+                .build());
+        } catch (Exception e) {
+            // Auditing must never fail the request itself
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private UUID documentId(HttpServletRequest request) {
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(
+            HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pathVariables == null || pathVariables.get("id") == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(pathVariables.get("id"));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.dms.document.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Streamed responses (file downloads, renditions and ZIP bundles) are written on this executor,
+// not on the request thread. It is declared here so that no other Executor bean can take its
+// place: with virtual threads enabled every response streams on its own virtual thread,
+// otherwise on a bounded pool of platform threads.
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${spring.task.execution.pool.max-size:200}")
+    private int maxThreads;
+
+    @Value("${spring.task.execution.pool.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        // A streamed response holds its thread for the whole transfer, so the pool is sized
+        // like Tomcat's and grows to full size before it queues
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(applicationTaskExecutor());
+    }
+}
@@ -0,0 +1,157 @@
+package com.dms.document.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Sheds load per bulkhead before a request takes a database connection or reads its body.
+// Uploads, list queries and single reads each get their own adaptive limit, so a slow storage
+// backend that stalls uploads cannot starve cheap reads; requests over the limit get an
+// immediate 503 with Retry-After. Long-lived streams (events, downloads, bundles) and other
+// writes are not limited. The bulkheads share the request threads and the connection pool, so
+// together they must leave request threads for everything else, and uploads alone must leave
+// connections for reads; the service refuses to start with limits that do not.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    enum Bulkhead {
+        UPLOAD(4, 2, 8),
+        LIST(16, 4, 48),
+        READ(32, 8, 120);
+
+        private final int initialLimit;
+        private final int minLimit;
+        private final int maxLimit;
+
+        Bulkhead(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+
+    private static final String PREFIX = "/api/documents";
+    private static final Pattern UUID_SEGMENT =
+        Pattern.compile("/[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern UPLOAD_PATH =
+        Pattern.compile(".*/(upload|upload-complete|uploads(/.*)?)$|/ingestions/archive$");
+    private static final Pattern UNLIMITED_PATH =
+        Pattern.compile("/events$|/bundle$|/download$");
+
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final Map<Bulkhead, GradientConcurrencyLimiter> limiters = new EnumMap<>(Bulkhead.class);
+    private final Map<Bulkhead, Counter> rejectedCounters = new EnumMap<>(Bulkhead.class);
+
+    public ConcurrencyLimitFilter(Environment environment, MeterRegistry meterRegistry) {
+        this.enabled = environment.getProperty("limits.enabled", Boolean.class, true);
+        this.retryAfterSeconds = String.valueOf(environment.getProperty("limits.retry-after-seconds", Integer.class, 1));
+
+        for (Bulkhead bulkhead : Bulkhead.values()) {
+            String name = bulkhead.name().toLowerCase();
+            GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(
+                environment.getProperty("limits." + name + ".initial-limit", Integer.class, bulkhead.initialLimit),
+                environment.getProperty("limits." + name + ".min-limit", Integer.class, bulkhead.minLimit),
+                environment.getProperty("limits." + name + ".max-limit", Integer.class, bulkhead.maxLimit));
+            limiters.put(bulkhead, limiter);
+
+            Gauge.builder("dms.limits.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+            Gauge.builder("dms.limits.in-flight", limiter, GradientConcurrencyLimiter::getInFlight)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+            rejectedCounters.put(bulkhead, meterRegistry.counter("dms.limits.rejected", "bulkhead", name));
+        }
+
+        if (enabled) {
+            int requestThreads = environment.getProperty("server.tomcat.threads.max", Integer.class, 200);
+            int connections = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+            int maxLimits = limiters.values().stream().mapToInt(GradientConcurrencyLimiter::getMaxLimit).sum();
+            if (maxLimits >= requestThreads) {
+                throw new IllegalStateException("limits max-limit total " + maxLimits
+                    + " must stay below server.tomcat.threads.max " + requestThreads);
+            }
+            if (limiters.get(Bulkhead.UPLOAD).getMaxLimit() >= connections) {
+                throw new IllegalStateException("limits.upload.max-limit must stay below "
+                    + "spring.datasource.hikari.maximum-pool-size " + connections);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || bulkheadFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Bulkhead bulkhead = bulkheadFor(request);
+        GradientConcurrencyLimiter limiter = limiters.get(bulkhead);
+
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            rejectedCounters.get(bulkhead).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent " + bulkhead.name().toLowerCase() + " requests");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            int status = response.getStatus();
+            if (status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value()) {
+                limiter.onDropped();
+            } else if (!completed || status >= 500 || request.isAsyncStarted()) {
+                // Errors here are mostly unmapped exceptions such as a missing document
+                limiter.onIgnore();
+            } else {
+                limiter.onSuccess(System.nanoTime() - start, inFlight);
+            }
+        }
+    }
+
+    // Null for requests that are not limited
+    private static Bulkhead bulkheadFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(PREFIX)) {
+            return null;
+        }
+        path = path.substring(PREFIX.length());
+        if (UNLIMITED_PATH.matcher(path).find()) {
+            return null;
+        }
+
+        String method = request.getMethod();
+        if (UPLOAD_PATH.matcher(path).matches()) {
+            return "GET".equals(method) || "HEAD".equals(method) ? Bulkhead.READ : Bulkhead.UPLOAD;
+        }
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return null;
+        }
+        // /{id} and its sub-resources are single reads; everything else returns a list
+        return UUID_SEGMENT.matcher(path).lookingAt() ? Bulkhead.READ : Bulkhead.LIST;
+    }
+}
@@ -0,0 +1,117 @@
+package com.dms.document.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Adaptive concurrency limit in the style of Netflix's Gradient2 limiter. A short average of
+// request latency is compared with a long-term baseline: while latency stays near the baseline
+// the limit grows by about sqrt(limit), and once queueing pushes latency up the gradient drops
+// below 1 and the limit shrinks towards what the backends can sustain.
+class GradientConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    // Latency may rise this much above the baseline before the limit starts to shrink
+    private static final double TOLERANCE = 1.5;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final MovingAverage shortRtt = new MovingAverage(10);
+    private final MovingAverage longRtt = new MovingAverage(600);
+    private volatile double limit;
+
+    GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    // Returns the number of requests in flight including this one, or -1 when over the limit
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    void onSuccess(long rttNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        update(rttNanos, inFlightAtStart);
+    }
+
+    // The request failed in a way that suggests overload, e.g. a timeout or a 5xx
+    void onDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        }
+    }
+
+    // The request says nothing about capacity, e.g. it was handed to an async thread
+    void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    int getMaxLimit() {
+        return maxLimit;
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart) {
+        double shortAverage = shortRtt.add(rttNanos);
+        double longAverage = longRtt.add(rttNanos);
+
+        // After a slow period the baseline would stay inflated for a long time; let it catch up
+        if (longAverage / shortAverage > 2.0) {
+            longRtt.scale(0.95);
+        }
+
+        // A lightly used limiter learns nothing about capacity, so it must not keep growing
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longAverage / shortAverage));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    // Plain mean until the window has filled, exponential moving average after that
+    private static final class MovingAverage {
+        private final int window;
+        private int count;
+        private double value;
+
+        private MovingAverage(int window) {
+            this.window = window;
+        }
+
+        private double add(double sample) {
+            if (count < window) {
+                count++;
+                value += (sample - value) / count;
+            } else {
+                double factor = 2.0 / (window + 1);
+                value = value * (1 - factor) + sample * factor;
+            }
+            return value;
+        }
+
+        private void scale(double ratio) {
+            value *= ratio;
+        }
+    }
+}
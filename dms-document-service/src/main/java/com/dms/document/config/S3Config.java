@@ -1,14 +1,24 @@
 package com.dms.document.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+
+import java.net.URI;
 
 @Configuration
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
 public class S3Config {
 
     @Value("${aws.accessKey}")
@@ -20,13 +30,81 @@ public class S3Config {
     @Value("${aws.region}")
     private String region;
 
+    // Optional endpoint override for S3-compatible stores such as MinIO
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${aws.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
+    @Value("${aws.s3.upload.part-size:8388608}")
+    private long partSize;
+
+    @Value("${aws.s3.upload.multipart-threshold:16777216}")
+    private long multipartThreshold;
+
+    @Value("${aws.s3.upload.part-concurrency:4}")
+    private int partConcurrency;
+
+    @Value("${aws.s3.upload.max-concurrency:32}")
+    private int maxConcurrency;
+
     @Bean
     public S3Client s3Client() {
         AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKey, secretKey);
         
-        return S3Client.builder()
+        var builder = S3Client.builder()
             .region(Region.of(region))
             .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
+            .forcePathStyle(pathStyleAccess);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    // Splits large uploads into parts sent concurrently; the part buffers bound heap use per upload
+    @Bean
+    public S3AsyncClient s3AsyncClient() {
+        AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKey, secretKey);
+        
+        var builder = S3AsyncClient.builder()
+            .region(Region.of(region))
+            .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
+            .forcePathStyle(pathStyleAccess)
+            .httpClientBuilder(NettyNioAsyncHttpClient.builder().maxConcurrency(maxConcurrency))
+            .multipartEnabled(true)
+            .multipartConfiguration(MultipartConfiguration.builder()
+                .thresholdInBytes(multipartThreshold)
+                .minimumPartSizeInBytes(partSize)
+                .apiCallBufferSizeInBytes(partSize * partConcurrency)
+                .build());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public S3Presigner s3Presigner() {
+        AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKey, secretKey);
+        
+        var builder = S3Presigner.builder()
+            .region(Region.of(region))
+            .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
+            .serviceConfiguration(S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyleAccess)
+                .build());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public S3TransferManager s3TransferManager(S3AsyncClient s3AsyncClient) {
+        return S3TransferManager.builder()
+            .s3Client(s3AsyncClient)
             .build();
     }
 }
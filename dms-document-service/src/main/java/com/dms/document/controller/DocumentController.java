@@ -1,15 +1,34 @@
 package com.dms.document.controller;
 
 import com.dms.common.dto.DocumentDto;
+import com.dms.common.dto.DocumentVersionDto;
+import com.dms.common.dto.IngestionJobDto;
+import com.dms.common.dto.PresignedUploadDto;
+import com.dms.common.dto.UploadSessionDto;
+import com.dms.document.service.BulkIngestionService;
+import com.dms.document.service.DocumentEventPublisher;
 import com.dms.document.service.DocumentService;
+import com.dms.document.entity.Document;
+import com.dms.document.service.FileDownloadService;
+import com.dms.document.service.PreviewService;
+import com.dms.document.service.ResumableUploadService;
+import com.dms.document.service.TextExtractionService;
+import com.dms.document.service.ZipBundleService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -17,7 +36,17 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/documents")
 @RequiredArgsConstructor
 public class DocumentController {
+    private static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
+    private static final String UPLOAD_LENGTH_HEADER = "Upload-Length";
+
     private final DocumentService documentService;
+    private final DocumentEventPublisher documentEventPublisher;
+    private final FileDownloadService fileDownloadService;
+    private final ZipBundleService zipBundleService;
+    private final ResumableUploadService resumableUploadService;
+    private final PreviewService previewService;
+    private final TextExtractionService textExtractionService;
+    private final BulkIngestionService bulkIngestionService;
 
     @GetMapping
     public ResponseEntity<List<DocumentDto>> getAllDocuments(
@@ -42,6 +71,180 @@ public class DocumentController {
         return ResponseEntity.ok(Collections.emptyList());
     }
 
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToDocumentEvents(
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role) {
+        
+        // If admin, stream changes from every department
+        Set<UUID> departmentIds = null;
+        if (!"admin".equalsIgnoreCase(role)) {
+            // Regular users without departments have nothing to watch
+            if (departmentIdsHeader == null || departmentIdsHeader.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            departmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+        }
+        
+        SseEmitter emitter = documentEventPublisher.subscribe(departmentIds);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<DocumentDto>> getMostViewedDocuments(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role) {
+        
+        // If admin, rank across all departments
+        if ("admin".equalsIgnoreCase(role)) {
+            return ResponseEntity.ok(documentService.getMostViewedDocuments(null, limit));
+        }
+        
+        // For regular users, rank only documents from their departments
+        if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+            Set<UUID> departmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+                
+            return ResponseEntity.ok(documentService.getMostViewedDocuments(departmentIds, limit));
+        }
+        
+        // If no departments, return empty list
+        return ResponseEntity.ok(Collections.emptyList());
+    }
+
+    @GetMapping(value = "/bundle", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> downloadBundle(
+            @RequestParam(required = false) UUID departmentId,
+            @RequestParam(required = false) List<UUID> ids,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role,
+            @RequestHeader("X-User-Id") String userIdStr) {
+        
+        if (departmentId == null && (ids == null || ids.isEmpty())) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        // If admin, bundle from any department
+        Set<UUID> userDepartmentIds = null;
+        if (!"admin".equalsIgnoreCase(role)) {
+            userDepartmentIds = Collections.emptySet();
+            if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+                userDepartmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                    .map(UUID::fromString)
+                    .collect(Collectors.toSet());
+            }
+            
+            // Regular users may only bundle departments they belong to
+            if ((ids == null || ids.isEmpty()) && !userDepartmentIds.contains(departmentId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        }
+        
+        // Documents the user cannot see are left out of the bundle
+        List<Document> documents = zipBundleService.findBundleDocuments(
+            departmentId, ids, userDepartmentIds, UUID.fromString(userIdStr));
+        
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("documents.zip")
+                .build()
+                .toString())
+            .body(zipBundleService.createBundle(documents));
+    }
+
+    // Re-extracts text for documents missing it, or for every document when force is set
+    @PostMapping("/text-extraction/backfill")
+    public ResponseEntity<Void> startTextExtractionBackfill(
+            @RequestParam(defaultValue = "false") boolean force,
+            @RequestHeader("X-User-Role") String role) {
+        
+        // Only admin can start a backfill
+        if (!"admin".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        if (!textExtractionService.startBackfill(force)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    // Bulk ingestion of a directory under ingestion.allowed-root described by manifest.jsonl
+    @PostMapping("/ingestions")
+    public ResponseEntity<IngestionJobDto> startDirectoryIngestion(
+            @RequestBody IngestionJobDto request,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader("X-User-Role") String role) {
+        
+        // Only admin can start an ingestion
+        if (!"admin".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        IngestionJobDto job = bulkIngestionService.startFromDirectory(request, UUID.fromString(userIdStr));
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/documents/ingestions/" + job.getId()))
+            .body(job);
+    }
+
+    // Bulk ingestion of an uploaded ZIP with manifest.jsonl at its root
+    @PostMapping(value = "/ingestions/archive", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<IngestionJobDto> startArchiveIngestion(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) UUID defaultDepartmentId,
+            @RequestParam(required = false) String defaultType,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader("X-User-Role") String role) throws IOException {
+        
+        // Only admin can start an ingestion
+        if (!"admin".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        IngestionJobDto request = IngestionJobDto.builder()
+            .defaultDepartmentId(defaultDepartmentId)
+            .defaultType(defaultType)
+            .build();
+        IngestionJobDto job = bulkIngestionService.startFromArchive(file, request, UUID.fromString(userIdStr));
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/documents/ingestions/" + job.getId()))
+            .body(job);
+    }
+
+    @GetMapping("/ingestions/{jobId}")
+    public ResponseEntity<IngestionJobDto> getIngestion(
+            @PathVariable UUID jobId,
+            @RequestHeader("X-User-Role") String role) {
+        
+        if (!"admin".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noStore())
+            .body(bulkIngestionService.getJob(jobId));
+    }
+
+    // Continues an interrupted job and retries its failed entries
+    @PostMapping("/ingestions/{jobId}/resume")
+    public ResponseEntity<IngestionJobDto> resumeIngestion(
+            @PathVariable UUID jobId,
+            @RequestHeader("X-User-Role") String role) {
+        
+        if (!"admin".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        return ResponseEntity.accepted().body(bulkIngestionService.resume(jobId));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<DocumentDto> getDocumentById(
             @PathVariable UUID id,
@@ -53,6 +256,7 @@ public class DocumentController {
         
         // If admin or document creator, allow access
         if ("admin".equalsIgnoreCase(role) || document.getCreatedBy().toString().equals(userIdStr)) {
+            documentService.recordView(document);
             return ResponseEntity.ok(document);
         }
         
@@ -63,6 +267,7 @@ public class DocumentController {
                 .collect(Collectors.toSet());
                 
             if (userDepartmentIds.contains(document.getDepartmentId())) {
+                documentService.recordView(document);
                 return ResponseEntity.ok(document);
             }
         }
@@ -71,6 +276,154 @@ public class DocumentController {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
 
+    @GetMapping("/{id}/download")
+    public ResponseEntity<StreamingResponseBody> downloadFile(
+            @PathVariable UUID id,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role,
+            @RequestHeader("X-User-Id") String userIdStr,
+            HttpServletRequest request) {
+        
+        Document document = documentService.getDocumentForAccessCheck(id);
+        
+        // If admin or document creator, allow access
+        if ("admin".equalsIgnoreCase(role) || document.getCreatedBy().toString().equals(userIdStr)) {
+            return fileDownloadService.download(document, request);
+        }
+        
+        // Check if user has access to the document's department
+        if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+            Set<UUID> userDepartmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+                
+            if (userDepartmentIds.contains(document.getDepartmentId())) {
+                return fileDownloadService.download(document, request);
+            }
+        }
+        
+        // User doesn't have access
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    // Renditions are generated in the background; 404 until they are ready
+    @GetMapping("/{id}/thumbnail")
+    public ResponseEntity<StreamingResponseBody> getThumbnail(
+            @PathVariable UUID id,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role,
+            @RequestHeader("X-User-Id") String userIdStr,
+            HttpServletRequest request) {
+        
+        return getRendition(id, PreviewService.Rendition.THUMBNAIL, departmentIdsHeader, role, userIdStr, request);
+    }
+
+    @GetMapping("/{id}/preview")
+    public ResponseEntity<StreamingResponseBody> getPreview(
+            @PathVariable UUID id,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role,
+            @RequestHeader("X-User-Id") String userIdStr,
+            HttpServletRequest request) {
+        
+        return getRendition(id, PreviewService.Rendition.PREVIEW, departmentIdsHeader, role, userIdStr, request);
+    }
+
+    @GetMapping("/{id}/versions")
+    public ResponseEntity<List<DocumentVersionDto>> getDocumentVersions(
+            @PathVariable UUID id,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role,
+            @RequestHeader("X-User-Id") String userIdStr) {
+        
+        Document document = documentService.getDocumentForAccessCheck(id);
+        
+        // If admin or document creator, allow access
+        if ("admin".equalsIgnoreCase(role) || document.getCreatedBy().toString().equals(userIdStr)) {
+            return ResponseEntity.ok(documentService.getDocumentVersions(id));
+        }
+        
+        // Check if user has access to the document's department
+        if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+            Set<UUID> userDepartmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+                
+            if (userDepartmentIds.contains(document.getDepartmentId())) {
+                return ResponseEntity.ok(documentService.getDocumentVersions(id));
+            }
+        }
+        
+        // User doesn't have access
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    @GetMapping("/{id}/versions/{versionNumber}")
+    public ResponseEntity<DocumentVersionDto> getDocumentVersion(
+            @PathVariable UUID id,
+            @PathVariable int versionNumber,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role,
+            @RequestHeader("X-User-Id") String userIdStr) {
+        
+        Document document = documentService.getDocumentForAccessCheck(id);
+        
+        // If admin or document creator, allow access
+        if ("admin".equalsIgnoreCase(role) || document.getCreatedBy().toString().equals(userIdStr)) {
+            return ResponseEntity.ok(documentService.getDocumentVersion(id, versionNumber));
+        }
+        
+        // Check if user has access to the document's department
+        if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+            Set<UUID> userDepartmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+                
+            if (userDepartmentIds.contains(document.getDepartmentId())) {
+                return ResponseEntity.ok(documentService.getDocumentVersion(id, versionNumber));
+            }
+        }
+        
+        // User doesn't have access
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<List<DocumentDto>> getNearDuplicates(
+            @PathVariable UUID id,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role,
+            @RequestHeader("X-User-Id") String userIdStr) {
+        
+        Document document = documentService.getDocumentForAccessCheck(id);
+        
+        // If admin, return every near-duplicate
+        if ("admin".equalsIgnoreCase(role)) {
+            return ResponseEntity.ok(documentService.getNearDuplicates(id));
+        }
+        
+        Set<UUID> userDepartmentIds = Collections.emptySet();
+        if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+            userDepartmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+        }
+        
+        // User needs access to the source document itself
+        if (!document.getCreatedBy().toString().equals(userIdStr)
+                && !userDepartmentIds.contains(document.getDepartmentId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        // Only report duplicates the user is allowed to see
+        Set<UUID> visibleDepartmentIds = userDepartmentIds;
+        List<DocumentDto> duplicates = documentService.getNearDuplicates(id).stream()
+            .filter(duplicate -> visibleDepartmentIds.contains(duplicate.getDepartmentId())
+                || duplicate.getCreatedBy().toString().equals(userIdStr))
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(duplicates);
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<DocumentDto>> getDocumentsByUser(@PathVariable UUID userId) {
         return ResponseEntity.ok(documentService.getDocumentsByUser(userId));
@@ -203,6 +556,184 @@ public class DocumentController {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
 
+    @PostMapping("/{id}/upload-url")
+    public ResponseEntity<PresignedUploadDto> createPresignedUpload(
+            @PathVariable UUID id,
+            @RequestBody PresignedUploadDto request,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role) {
+        
+        // The local backend has no URL to upload to; clients fall back to the regular upload
+        if (!documentService.supportsDirectUpload()) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+        }
+        
+        DocumentDto existingDocument = documentService.getDocumentById(id);
+        
+        // If admin or document creator, allow upload
+        if ("admin".equalsIgnoreCase(role) || existingDocument.getCreatedBy().toString().equals(userIdStr)) {
+            return ResponseEntity.ok(documentService.createPresignedUpload(id, request));
+        }
+        
+        // For regular users, check if they belong to the document's department
+        if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+            Set<UUID> userDepartmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+                
+            if (userDepartmentIds.contains(existingDocument.getDepartmentId())) {
+                return ResponseEntity.ok(documentService.createPresignedUpload(id, request));
+            }
+        }
+        
+        // User doesn't have access
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    @PostMapping("/{id}/upload-complete")
+    public ResponseEntity<DocumentDto> completePresignedUpload(
+            @PathVariable UUID id,
+            @RequestBody PresignedUploadDto request,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role) {
+        
+        UUID userId = UUID.fromString(userIdStr);
+        DocumentDto existingDocument = documentService.getDocumentById(id);
+        
+        // If admin or document creator, allow upload
+        if ("admin".equalsIgnoreCase(role) || existingDocument.getCreatedBy().toString().equals(userIdStr)) {
+            return ResponseEntity.ok(documentService.completePresignedUpload(id, request, userId));
+        }
+        
+        // For regular users, check if they belong to the document's department
+        if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+            Set<UUID> userDepartmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+                
+            if (userDepartmentIds.contains(existingDocument.getDepartmentId())) {
+                return ResponseEntity.ok(documentService.completePresignedUpload(id, request, userId));
+            }
+        }
+        
+        // User doesn't have access
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    // Resumable uploads: create a session, PATCH chunks at Upload-Offset, then complete
+    @PostMapping("/{id}/uploads")
+    public ResponseEntity<UploadSessionDto> createResumableUpload(
+            @PathVariable UUID id,
+            @RequestBody UploadSessionDto request,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role) {
+        
+        if (!canAccess(documentService.getDocumentForAccessCheck(id), userIdStr, departmentIdsHeader, role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        UploadSessionDto session = documentService.createResumableUpload(id, request, UUID.fromString(userIdStr));
+        return ResponseEntity.created(URI.create("/api/documents/" + id + "/uploads/" + session.getId()))
+            .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.getOffset()))
+            .body(session);
+    }
+
+    // Also answers HEAD, which is how clients ask where to resume
+    @GetMapping("/{id}/uploads/{sessionId}")
+    public ResponseEntity<UploadSessionDto> getResumableUpload(
+            @PathVariable UUID id,
+            @PathVariable UUID sessionId,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role) {
+        
+        if (!canAccess(documentService.getDocumentForAccessCheck(id), userIdStr, departmentIdsHeader, role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        UploadSessionDto session = resumableUploadService.getSession(id, sessionId);
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noStore())
+            .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.getOffset()))
+            .header(UPLOAD_LENGTH_HEADER, String.valueOf(session.getFileSize()))
+            .body(session);
+    }
+
+    @PatchMapping("/{id}/uploads/{sessionId}")
+    public ResponseEntity<Void> appendResumableUpload(
+            @PathVariable UUID id,
+            @PathVariable UUID sessionId,
+            @RequestHeader(UPLOAD_OFFSET_HEADER) long offset,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role,
+            HttpServletRequest request) throws IOException {
+        
+        if (!canAccess(documentService.getDocumentForAccessCheck(id), userIdStr, departmentIdsHeader, role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        // The chunk length has to be known up front so it can be streamed into a storage part
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+        
+        try {
+            UploadSessionDto session = resumableUploadService.appendChunk(id, sessionId, offset,
+                request.getInputStream(), contentLength);
+            return ResponseEntity.noContent()
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.getOffset()))
+                .build();
+        } catch (IllegalStateException e) {
+            // Offset mismatch: tell the client where the upload actually is
+            UploadSessionDto session = resumableUploadService.getSession(id, sessionId);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.getOffset()))
+                .build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/{id}/uploads/{sessionId}/complete")
+    public ResponseEntity<DocumentDto> completeResumableUpload(
+            @PathVariable UUID id,
+            @PathVariable UUID sessionId,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role) throws IOException {
+        
+        if (!canAccess(documentService.getDocumentForAccessCheck(id), userIdStr, departmentIdsHeader, role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        try {
+            return ResponseEntity.ok(documentService.completeResumableUpload(id, sessionId, UUID.fromString(userIdStr)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @DeleteMapping("/{id}/uploads/{sessionId}")
+    public ResponseEntity<Void> abortResumableUpload(
+            @PathVariable UUID id,
+            @PathVariable UUID sessionId,
+            @RequestHeader("X-User-Id") String userIdStr,
+            @RequestHeader(value = "X-User-Department-Ids", required = false) String departmentIdsHeader,
+            @RequestHeader("X-User-Role") String role) {
+        
+        if (!canAccess(documentService.getDocumentForAccessCheck(id), userIdStr, departmentIdsHeader, role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        resumableUploadService.abort(id, sessionId);
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteDocument(
             @PathVariable UUID id,
@@ -220,4 +751,38 @@ public class DocumentController {
         // User doesn't have access
         return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
+
+    // Access checks use the entity, so they cost no name lookups
+    private boolean canAccess(Document document, String userIdStr, String departmentIdsHeader, String role) {
+        return canAccess(document.getCreatedBy(), document.getDepartmentId(), userIdStr, departmentIdsHeader, role);
+    }
+
+    // Admin, document creator, or a member of the document's department
+    private boolean canAccess(UUID createdBy, UUID departmentId, String userIdStr, String departmentIdsHeader, String role) {
+        if ("admin".equalsIgnoreCase(role) || createdBy.toString().equals(userIdStr)) {
+            return true;
+        }
+        
+        if (departmentIdsHeader != null && !departmentIdsHeader.isEmpty()) {
+            Set<UUID> userDepartmentIds = Arrays.stream(departmentIdsHeader.split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+            return userDepartmentIds.contains(departmentId);
+        }
+        
+        return false;
+    }
+
+    private ResponseEntity<StreamingResponseBody> getRendition(UUID id, PreviewService.Rendition rendition,
+                                                               String departmentIdsHeader, String role,
+                                                               String userIdStr, HttpServletRequest request) {
+        Document document = documentService.getDocumentForAccessCheck(id);
+        if (!canAccess(document, userIdStr, departmentIdsHeader, role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        return previewService.findRendition(document.getS3Key(), document.getFileType(), rendition)
+            .map(object -> fileDownloadService.downloadRendition(object, request))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
@@ -0,0 +1,50 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Append-only; rows are written in batches by AccessAuditService and never updated
+@Entity
+@Table(name = "document_access_audit", indexes = {
+    @Index(name = "idx_access_audit_document", columnList = "documentId, occurredAt"),
+    @Index(name = "idx_access_audit_user", columnList = "userId, occurredAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessAuditRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+    
+    private String userId;
+    
+    private String role;
+    
+    // Raw X-User-Department-Ids claim the request was made with
+    @Column(length = 2000)
+    private String departmentIds;
+    
+    @Column(nullable = false)
+    private String action;
+    
+    @Column(nullable = false)
+    private String httpMethod;
+    
+    @Column(nullable = false)
+    private String path;
+    
+    private UUID documentId;
+    
+    private int status;
+}
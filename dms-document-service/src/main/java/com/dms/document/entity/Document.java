@@ -10,12 +10,18 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+    @Index(name = "idx_documents_translation_status", columnList = "translationStatus")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Document {
+    public enum TranslationStatus {
+        PENDING, COMPLETED, FAILED
+    }
+    
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -25,6 +31,15 @@ public class Document {
     
     private String translatedTitle;
     
+    // PENDING until the translation worker has translated the current title
+    @Enumerated(EnumType.STRING)
+    private TranslationStatus translationStatus;
+    
+    // Failed translations of the current title; the worker retries after nextTranslationAt
+    private Integer translationAttempts;
+    
+    private LocalDateTime nextTranslationAt;
+    
     private String description;
     
     @Column(columnDefinition = "TEXT")
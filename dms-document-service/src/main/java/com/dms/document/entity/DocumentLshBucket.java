@@ -0,0 +1,31 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "document_lsh_buckets", indexes = {
+    @Index(name = "idx_lsh_bucket_key", columnList = "bucketKey"),
+    @Index(name = "idx_lsh_document_id", columnList = "documentId")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentLshBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private UUID documentId;
+    
+    // Hash of one signature band, already mixed with the band index
+    @Column(nullable = false)
+    private long bucketKey;
+}
@@ -0,0 +1,28 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "document_signatures")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSignature {
+    @Id
+    private UUID documentId;
+    
+    // MinHash signature of the document content, packed as big-endian ints
+    @Column(nullable = false)
+    private byte[] signature;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,37 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Text extracted from a document's attached file. Kept apart from documents so that loading
+// documents for lists never pulls in megabytes of text.
+@Entity
+@Table(name = "document_texts")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentText {
+    @Id
+    private UUID documentId;
+    
+    // The attached file the text was extracted from
+    @Column(nullable = false)
+    private String s3Key;
+    
+    @Column(columnDefinition = "TEXT")
+    private String extractedText;
+    
+    // Set when extraction stopped at the size cap
+    @Column(nullable = false)
+    private boolean truncated;
+    
+    @Column(nullable = false)
+    private LocalDateTime extractedAt;
+}
@@ -0,0 +1,56 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "document_versions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_document_version", columnNames = {"documentId", "versionNumber"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentVersion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(nullable = false)
+    private UUID documentId;
+    
+    @Column(nullable = false)
+    private int versionNumber;
+    
+    @Column(nullable = false)
+    private String title;
+    
+    private String description;
+    
+    // Full content for snapshots, otherwise a delta against the previous version
+    @Column(nullable = false)
+    private boolean snapshot;
+    
+    @Column(columnDefinition = "TEXT")
+    private String contentData;
+    
+    private String s3Key;
+    
+    private String fileName;
+    
+    private String fileType;
+    
+    private Long fileSize;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private UUID createdBy;
+}
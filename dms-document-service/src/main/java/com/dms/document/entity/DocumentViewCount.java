@@ -0,0 +1,31 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "document_view_counts", indexes = {
+    @Index(name = "idx_view_counts_department", columnList = "departmentId, viewCount")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentViewCount {
+    @Id
+    private UUID documentId;
+    
+    @Column(nullable = false)
+    private UUID departmentId;
+    
+    @Column(nullable = false)
+    private long viewCount;
+    
+    private LocalDateTime lastViewedAt;
+}
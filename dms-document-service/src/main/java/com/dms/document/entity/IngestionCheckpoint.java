@@ -0,0 +1,45 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Outcome of one manifest entry of an ingestion job. Entries with a DONE checkpoint are
+// skipped when the job is resumed; FAILED ones are tried again.
+@Entity
+@Table(name = "ingestion_checkpoints", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_ingestion_checkpoint", columnNames = {"jobId", "itemIndex"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionCheckpoint {
+    public enum Status {
+        DONE, FAILED
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private UUID jobId;
+    
+    // Line of the manifest, counted from 0
+    @Column(nullable = false)
+    private long itemIndex;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+    
+    private UUID documentId;
+    
+    @Column(length = 1000)
+    private String error;
+}
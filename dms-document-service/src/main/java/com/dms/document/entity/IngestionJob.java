@@ -0,0 +1,65 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "ingestion_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionJob {
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(nullable = false, length = 1000)
+    private String source;
+    
+    // Whether source is a ZIP archive rather than a directory
+    @Column(nullable = false)
+    private boolean archive;
+    
+    private UUID defaultDepartmentId;
+    
+    private String defaultType;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+    
+    // Set by the node that claimed the job; a takeover replaces it and stops the previous run
+    private UUID claimToken;
+    
+    @Column(nullable = false)
+    private long totalItems;
+    
+    @Column(nullable = false)
+    private long completedItems;
+    
+    @Column(nullable = false)
+    private long failedItems;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Column(nullable = false)
+    private UUID createdBy;
+}
@@ -0,0 +1,40 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Outbox row for a stored object to delete, written in the same transaction that dropped
+// the last reference to it and drained by StorageDeletionService
+@Entity
+@Table(name = "storage_deletion_outbox", indexes = {
+    @Index(name = "idx_storage_deletion_next_attempt", columnList = "nextAttemptAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String storageKey;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,40 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A content-addressed file in storage, shared by every document version that uploaded the same bytes
+@Entity
+@Table(name = "stored_blobs", indexes = {
+    @Index(name = "idx_stored_blobs_key", columnList = "storageKey", unique = true)
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+    // Hex-encoded SHA-256 of the content
+    @Id
+    @Column(length = 64)
+    private String digest;
+    
+    @Column(nullable = false)
+    private String storageKey;
+    
+    @Column(nullable = false)
+    private long size;
+    
+    private String contentType;
+    
+    // Number of documents whose history references this blob
+    @Column(nullable = false)
+    private int refCount;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
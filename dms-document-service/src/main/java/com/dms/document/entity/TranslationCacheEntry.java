@@ -0,0 +1,38 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A translation already paid for, shared by every document with the same (normalized) text
+@Entity
+@Table(name = "translation_cache")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranslationCacheEntry {
+    // Hex-encoded SHA-256 of source language, target language and normalized text
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+    
+    @Column(nullable = false, length = 16)
+    private String sourceLanguage;
+    
+    @Column(nullable = false, length = 16)
+    private String targetLanguage;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String sourceText;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String translatedText;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,61 @@
+package com.dms.document.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A resumable upload in progress, backed by a multipart upload in storage. Each chunk the
+// client sends becomes one part, so only the offset and part count are tracked here.
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "idx_upload_sessions_expires", columnList = "expiresAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(nullable = false)
+    private UUID documentId;
+    
+    @Column(nullable = false)
+    private String storageKey;
+    
+    @Column(nullable = false)
+    private String uploadId;
+    
+    @Column(nullable = false)
+    private String fileName;
+    
+    private String contentType;
+    
+    @Column(nullable = false)
+    private long fileSize;
+    
+    @Column(nullable = false)
+    private long chunkSize;
+    
+    @Column(name = "upload_offset", nullable = false)
+    private long offset;
+    
+    @Column(nullable = false)
+    private int partCount;
+    
+    @Column(nullable = false)
+    private UUID createdBy;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
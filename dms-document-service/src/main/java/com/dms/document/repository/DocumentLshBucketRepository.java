@@ -0,0 +1,21 @@
+package com.dms.document.repository;
+
+import com.dms.document.entity.DocumentLshBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface DocumentLshBucketRepository extends JpaRepository<DocumentLshBucket, Long> {
+    @Query("SELECT DISTINCT b.documentId FROM DocumentLshBucket b WHERE b.bucketKey IN :bucketKeys AND b.documentId <> :documentId")
+    List<UUID> findCandidateDocumentIds(@Param("bucketKeys") Collection<Long> bucketKeys,
+                                        @Param("documentId") UUID documentId);
+    
+    @Modifying
+    @Query("DELETE FROM DocumentLshBucket b WHERE b.documentId = :documentId")
+    void deleteByDocumentId(@Param("documentId") UUID documentId);
+}
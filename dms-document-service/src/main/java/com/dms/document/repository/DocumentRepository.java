@@ -1,11 +1,14 @@
 package com.dms.document.repository;
 
 import com.dms.document.entity.Document;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
@@ -20,4 +23,9 @@ public interface DocumentRepository extends JpaRepository<Document, UUID> {
     
     @Query("SELECT d FROM Document d WHERE d.departmentId IN :departmentIds")
     List<Document> findByDepartmentIdIn(@Param("departmentIds") Set<UUID> departmentIds);
+    
+    // Serializes changes to a document, so each one records the next version number
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Document d WHERE d.id = :id")
+    Optional<Document> findByIdForUpdate(@Param("id") UUID id);
 }
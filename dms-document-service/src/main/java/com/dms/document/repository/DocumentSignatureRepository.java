@@ -0,0 +1,9 @@
+package com.dms.document.repository;
+
+import com.dms.document.entity.DocumentSignature;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface DocumentSignatureRepository extends JpaRepository<DocumentSignature, UUID> {
+}
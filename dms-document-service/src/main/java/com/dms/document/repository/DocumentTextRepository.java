@@ -0,0 +1,46 @@
+package com.dms.document.repository;
+
+import com.dms.document.entity.DocumentText;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface DocumentTextRepository extends JpaRepository<DocumentText, UUID> {
+    // Only stored while the document still has the file the text came from, so a slow
+    // extraction can never overwrite the text of a newer upload
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO document_texts (document_id, s3_key, extracted_text, truncated, extracted_at) " +
+                   "SELECT d.id, d.s3_key, :text, :truncated, now() FROM documents d " +
+                   "WHERE d.id = :documentId AND d.s3_key = :s3Key " +
+                   "ON CONFLICT (document_id) DO UPDATE SET s3_key = EXCLUDED.s3_key, " +
+                   "extracted_text = EXCLUDED.extracted_text, truncated = EXCLUDED.truncated, " +
+                   "extracted_at = EXCLUDED.extracted_at",
+           nativeQuery = true)
+    int storeExtractedText(@Param("documentId") UUID documentId,
+                           @Param("s3Key") String s3Key,
+                           @Param("text") String text,
+                           @Param("truncated") boolean truncated);
+    
+    // Documents whose attached file has no text yet (or any attached file when force is set),
+    // paged by id so the backfill can walk the table without offsets
+    @Query(value = "SELECT d.id FROM documents d LEFT JOIN document_texts t ON t.document_id = d.id " +
+                   "WHERE d.s3_key IS NOT NULL AND d.id > :afterId " +
+                   "AND (:force OR t.s3_key IS NULL OR t.s3_key <> d.s3_key) " +
+                   "ORDER BY d.id",
+           nativeQuery = true)
+    List<UUID> findExtractionBacklog(@Param("afterId") UUID afterId,
+                                     @Param("force") boolean force,
+                                     Pageable pageable);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DocumentText t WHERE t.documentId = :documentId")
+    void deleteByDocumentId(@Param("documentId") UUID documentId);
+}
@@ -0,0 +1,34 @@
+package com.dms.document.repository;
+
+import com.dms.document.entity.DocumentVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface DocumentVersionRepository extends JpaRepository<DocumentVersion, UUID> {
+    List<DocumentVersion> findByDocumentIdOrderByVersionNumberDesc(UUID documentId);
+    
+    Optional<DocumentVersion> findTopByDocumentIdOrderByVersionNumberDesc(UUID documentId);
+    
+    Optional<DocumentVersion> findByDocumentIdAndVersionNumber(UUID documentId, int versionNumber);
+    
+    Optional<DocumentVersion> findTopByDocumentIdAndSnapshotTrueAndVersionNumberLessThanEqualOrderByVersionNumberDesc(
+        UUID documentId, int versionNumber);
+    
+    List<DocumentVersion> findByDocumentIdAndVersionNumberBetweenOrderByVersionNumberAsc(
+        UUID documentId, int fromVersion, int toVersion);
+    
+    boolean existsByDocumentIdAndS3Key(UUID documentId, String s3Key);
+    
+    @Query("SELECT DISTINCT v.s3Key FROM DocumentVersion v WHERE v.documentId = :documentId AND v.s3Key IS NOT NULL")
+    List<String> findDistinctS3KeysByDocumentId(@Param("documentId") UUID documentId);
+    
+    @Modifying
+    @Query("DELETE FROM DocumentVersion v WHERE v.documentId = :documentId")
+    void deleteByDocumentId(@Param("documentId") UUID documentId);
+}
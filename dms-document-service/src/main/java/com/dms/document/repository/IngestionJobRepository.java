@@ -0,0 +1,28 @@
+package com.dms.document.repository;
+
+import com.dms.document.entity.IngestionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface IngestionJobRepository extends JpaRepository<IngestionJob, UUID> {
+    List<IngestionJob> findByStatusIn(Collection<IngestionJob.Status> statuses);
+    
+    // Marks the job running unless another node runs it and has reported progress since staleBefore
+    @Transactional
+    @Modifying
+    @Query("UPDATE IngestionJob j SET j.status = :running, j.updatedAt = :now, j.claimToken = :claimToken " +
+           "WHERE j.id = :id AND (j.status <> :running OR j.updatedAt < :staleBefore)")
+    int claim(@Param("id") UUID id,
+              @Param("running") IngestionJob.Status running,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore,
+              @Param("claimToken") UUID claimToken);
+}
@@ -0,0 +1,7 @@
+package com.dms.document.repository;
+
+import com.dms.document.entity.StorageDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StorageDeletionRepository extends JpaRepository<StorageDeletion, Long> {
+}
@@ -0,0 +1,7 @@
+package com.dms.document.repository;
+
+import com.dms.document.entity.TranslationCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TranslationCacheRepository extends JpaRepository<TranslationCacheEntry, String> {
+}
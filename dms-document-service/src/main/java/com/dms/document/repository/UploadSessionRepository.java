@@ -0,0 +1,26 @@
+package com.dms.document.repository;
+
+import com.dms.document.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime time);
+    
+    // Only advances when no other request has moved the offset since it was read
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.offset = :newOffset, s.partCount = s.partCount + 1, s.expiresAt = :expiresAt " +
+           "WHERE s.id = :id AND s.offset = :expectedOffset")
+    int advanceOffset(@Param("id") UUID id,
+                      @Param("expectedOffset") long expectedOffset,
+                      @Param("newOffset") long newOffset,
+                      @Param("expiresAt") LocalDateTime expiresAt);
+}
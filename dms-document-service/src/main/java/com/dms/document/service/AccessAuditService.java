@@ -0,0 +1,160 @@
+package com.dms.document.service;
+
+import com.dms.document.entity.AccessAuditRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+@Service
+public class AccessAuditService {
+
+    public enum OverflowPolicy {
+        DROP_NEWEST, // reject the incoming event
+        DROP_OLDEST, // evict the oldest buffered event to make room
+        WAIT         // spin briefly for the writer, then drop the incoming event
+    }
+
+    private static final String INSERT_SQL =
+        "INSERT INTO document_access_audit " +
+        "(occurred_at, user_id, role, department_ids, action, http_method, path, document_id, status) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditRingBuffer<AccessAuditRecord> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final long maxWaitNanos;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxRetries;
+
+    private final Counter recordedCounter;
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AccessAuditService(JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${audit.buffer-capacity:65536}") int bufferCapacity,
+                              @Value("${audit.overflow-policy:DROP_NEWEST}") OverflowPolicy overflowPolicy,
+                              @Value("${audit.max-wait-ms:5}") long maxWaitMs,
+                              @Value("${audit.batch-size:500}") int batchSize,
+                              @Value("${audit.flush-interval-ms:200}") long flushIntervalMs,
+                              @Value("${audit.max-retries:3}") int maxRetries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new AuditRingBuffer<>(bufferCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxRetries = maxRetries;
+
+        this.recordedCounter = meterRegistry.counter("dms.audit.events.recorded");
+        this.droppedCounter = meterRegistry.counter("dms.audit.events.dropped");
+        this.writtenCounter = meterRegistry.counter("dms.audit.events.written");
+        this.failedCounter = meterRegistry.counter("dms.audit.batches.failed");
+        Gauge.builder("dms.audit.buffer.size", buffer, AuditRingBuffer::size).register(meterRegistry);
+        Gauge.builder("dms.audit.buffer.remaining", buffer, b -> b.capacity() - b.size()).register(meterRegistry);
+    }
+
+    // Never blocks the request thread for longer than audit.max-wait-ms
+    public void record(AccessAuditRecord event) {
+        recordedCounter.increment();
+        if (buffer.offer(event)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                while (!buffer.offer(event)) {
+                    if (buffer.poll() != null) {
+                        droppedCounter.increment();
+                    }
+                }
+            }
+            case WAIT -> {
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (!buffer.offer(event)) {
+                    if (System.nanoTime() - deadline > 0) {
+                        droppedCounter.increment();
+                        return;
+                    }
+                    Thread.onSpinWait();
+                }
+            }
+            default -> droppedCounter.increment();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void runWriter() {
+        List<AccessAuditRecord> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<AccessAuditRecord> batch) {
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, event) -> {
+                    statement.setTimestamp(1, Timestamp.valueOf(event.getOccurredAt()));
+                    statement.setString(2, event.getUserId());
+                    statement.setString(3, event.getRole());
+                    statement.setString(4, event.getDepartmentIds());
+                    statement.setString(5, event.getAction());
+                    statement.setString(6, event.getHttpMethod());
+                    statement.setString(7, event.getPath());
+                    statement.setObject(8, event.getDocumentId(), Types.OTHER);
+                    statement.setInt(9, event.getStatus());
+                });
+                writtenCounter.increment(batch.size());
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to write {} audit events (attempt {}/{}): {}",
+                    batch.size(), attempt, maxRetries, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L * attempt));
+            }
+        }
+
+        // Bounded loss: give up on this batch rather than stalling the buffer
+        failedCounter.increment();
+        droppedCounter.increment(batch.size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.dms.document.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+// First half of storing content-addressed blobs: reserves their rows in a short transaction
+// and uploads the ones not stored yet with no transaction open, so a large transfer holds no
+// connection or row lock. Reserved rows are queued for deletion after the upload lease, which
+// removes the objects of an upload whose references are never taken and keeps the others.
+@Service
+public class BlobUploadService {
+
+    // A blob the deletion worker removed between upload and acquireAll is uploaded again
+    public static final int MAX_ATTEMPTS = 3;
+
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final StorageDeletionService storageDeletionService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration uploadLease;
+
+    public BlobUploadService(ContentAddressedStorage contentAddressedStorage,
+                             StorageDeletionService storageDeletionService,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${storage.upload-lease:PT1H}") Duration uploadLease) {
+        this.contentAddressedStorage = contentAddressedStorage;
+        this.storageDeletionService = storageDeletionService;
+        this.transactionTemplate = transactionTemplate;
+        this.uploadLease = uploadLease;
+    }
+
+    // Uploads in parallel on executor; the uploaded keys are what acquireAll expects
+    public Uploads upload(Collection<ContentAddressedStorage.BlobReference> blobs, Executor executor) {
+        if (blobs.isEmpty()) {
+            return new Uploads(Set.of(), Set.of());
+        }
+        Set<String> reserved = transactionTemplate.execute(status -> {
+            Set<String> keys = contentAddressedStorage.reserve(blobs);
+            storageDeletionService.enqueue(keys, uploadLease);
+            return keys;
+        });
+
+        Set<String> failed = contentAddressedStorage.upload(
+            blobs.stream().filter(blob -> reserved.contains(blob.key())).toList(), executor);
+        Set<String> uploaded = new HashSet<>(reserved);
+        uploaded.removeAll(failed);
+        return new Uploads(uploaded, failed);
+    }
+
+    public record Uploads(Set<String> uploaded, Set<String> failed) {
+    }
+}
@@ -0,0 +1,698 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.DocumentEventDto;
+import com.dms.common.dto.IngestionJobDto;
+import com.dms.common.exception.ResourceNotFoundException;
+import com.dms.document.entity.IngestionCheckpoint;
+import com.dms.document.entity.IngestionJob;
+import com.dms.document.repository.IngestionJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Imports a server-side directory or an uploaded ZIP described by manifest.jsonl, one JSON
+// object per line. Entries are handled in batches: files are hashed and stored in parallel on
+// a bounded pool, then the documents, their first versions and a checkpoint per entry are
+// written with JDBC batches in one short transaction. Waiting for each batch bounds the uploads
+// in flight, and the checkpoints let an interrupted job resume after its last committed batch.
+// An entry that cannot be stored fails on its own and is retried when the job is resumed.
+@Slf4j
+@Service
+public class BulkIngestionService {
+
+    public static final String MANIFEST_NAME = "manifest.jsonl";
+
+    private static final String INSERT_DOCUMENT_SQL =
+        "INSERT INTO documents (id, title, description, content, type, category, department_id, " +
+        "s3_key, file_name, file_type, file_size, created_at, updated_at, created_by, updated_by, translation_status) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'PENDING')";
+
+    // Same first version DocumentVersionService.recordVersion writes for a new document
+    private static final String INSERT_VERSION_SQL =
+        "INSERT INTO document_versions (id, document_id, version_number, title, description, snapshot, " +
+        "content_data, s3_key, file_name, file_type, file_size, created_at, created_by) " +
+        "VALUES (?, ?, 1, ?, ?, true, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CHECKPOINT_SQL =
+        "INSERT INTO ingestion_checkpoints (job_id, item_index, status, document_id, error) " +
+        "VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT (job_id, item_index) DO UPDATE SET " +
+        "status = EXCLUDED.status, document_id = EXCLUDED.document_id, error = EXCLUDED.error";
+
+    private static final String DONE_SQL =
+        "SELECT item_index FROM ingestion_checkpoints " +
+        "WHERE job_id = ? AND status = 'DONE' AND item_index BETWEEN ? AND ?";
+
+    private static final String TOTAL_SQL =
+        "UPDATE ingestion_jobs SET total_items = ?, updated_at = ? WHERE id = ? AND claim_token = ?";
+
+    // Keeps other nodes from taking the job over while a long batch is in flight
+    private static final String HEARTBEAT_SQL =
+        "UPDATE ingestion_jobs SET updated_at = ? WHERE id = ? AND claim_token = ?";
+
+    // Held until the batch commits, so a takeover waits for it and the batch sees a takeover
+    private static final String OWNER_SQL =
+        "SELECT id FROM ingestion_jobs WHERE id = ? AND claim_token = ? FOR UPDATE";
+
+    private static final String PROGRESS_SQL =
+        "UPDATE ingestion_jobs SET " +
+        "completed_items = (SELECT count(*) FROM ingestion_checkpoints c WHERE c.job_id = ingestion_jobs.id AND c.status = 'DONE'), " +
+        "failed_items = (SELECT count(*) FROM ingestion_checkpoints c WHERE c.job_id = ingestion_jobs.id AND c.status = 'FAILED'), " +
+        "updated_at = ? WHERE id = ? AND claim_token = ?";
+
+    private static final String FINISH_SQL =
+        "UPDATE ingestion_jobs SET status = ?, last_error = ?, updated_at = ? WHERE id = ? AND claim_token = ?";
+
+    // Length of the varchar columns the manifest fills
+    private static final int MAX_COLUMN_LENGTH = 255;
+
+    private final IngestionJobRepository jobRepository;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final BlobUploadService blobUploadService;
+    private final NearDuplicateService nearDuplicateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService fileExecutor;
+    private final ScheduledExecutorService heartbeatExecutor;
+    private final Set<UUID> runningJobs = ConcurrentHashMap.newKeySet();
+    private final Path allowedRoot;
+    private final Path workDir;
+    private final int batchSize;
+    private final Duration staleAfter;
+    private volatile boolean shuttingDown;
+
+    public BulkIngestionService(IngestionJobRepository jobRepository,
+                                ContentAddressedStorage contentAddressedStorage,
+                                BlobUploadService blobUploadService,
+                                NearDuplicateService nearDuplicateService,
+                                ApplicationEventPublisher eventPublisher,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${ingestion.allowed-root:}") String allowedRoot,
+                                @Value("${ingestion.work-dir:${java.io.tmpdir}/dms-ingestion}") String workDir,
+                                @Value("${ingestion.max-concurrent-jobs:1}") int maxConcurrentJobs,
+                                @Value("${ingestion.file-threads:8}") int fileThreads,
+                                @Value("${ingestion.batch-size:100}") int batchSize,
+                                @Value("${ingestion.stale-after:PT10M}") Duration staleAfter,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) throws IOException {
+        this.jobRepository = jobRepository;
+        this.contentAddressedStorage = contentAddressedStorage;
+        this.blobUploadService = blobUploadService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.jobExecutor = Executors.newFixedThreadPool(maxConcurrentJobs, daemonThreads("ingestion-job"));
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(daemonThreads("ingestion-heartbeat"));
+        // Still a fixed pool in virtual-thread mode: its size is what bounds the files in flight
+        this.fileExecutor = Executors.newFixedThreadPool(fileThreads, virtualThreads
+            ? Thread.ofVirtual().name("ingestion-file").factory()
+            : daemonThreads("ingestion-file"));
+        this.allowedRoot = allowedRoot.isBlank() ? null : Paths.get(allowedRoot).toAbsolutePath().normalize();
+        this.workDir = Paths.get(workDir).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        this.staleAfter = staleAfter;
+
+        Files.createDirectories(this.workDir);
+    }
+
+    // directory is resolved against ingestion.allowed-root and must stay inside it
+    public IngestionJobDto startFromDirectory(IngestionJobDto request, UUID userId) {
+        if (allowedRoot == null) {
+            throw new IllegalStateException("Directory ingestion is disabled");
+        }
+        if (request.getSource() == null || request.getSource().isBlank()) {
+            throw new IllegalArgumentException("source is required");
+        }
+
+        Path directory = allowedRoot.resolve(request.getSource()).normalize();
+        if (!directory.startsWith(allowedRoot)) {
+            throw new IllegalArgumentException("source must be inside the ingestion root");
+        }
+        if (!Files.isRegularFile(directory.resolve(MANIFEST_NAME))) {
+            throw new IllegalArgumentException("No " + MANIFEST_NAME + " found in " + request.getSource());
+        }
+
+        return start(directory.toString(), false, request, userId);
+    }
+
+    // Keeps a copy of the archive in the work directory until the job has ingested every entry
+    public IngestionJobDto startFromArchive(MultipartFile file, IngestionJobDto request, UUID userId) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Archive is empty");
+        }
+
+        Path archive = workDir.resolve(UUID.randomUUID() + ".zip");
+        file.transferTo(archive);
+        try (ZipFile zip = new ZipFile(archive.toFile(), StandardCharsets.UTF_8)) {
+            if (zip.getEntry(MANIFEST_NAME) == null) {
+                throw new IllegalArgumentException("No " + MANIFEST_NAME + " found in the archive");
+            }
+            return start(archive.toString(), true, request, userId);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(archive);
+            throw e;
+        }
+    }
+
+    public IngestionJobDto getJob(UUID jobId) {
+        return mapToIngestionJobDto(findJob(jobId));
+    }
+
+    // Continues after the last committed batch and retries the entries that failed
+    public IngestionJobDto resume(UUID jobId) {
+        IngestionJob job = findJob(jobId);
+        if (runningJobs.contains(jobId)) {
+            throw new IllegalStateException("Ingestion job is already running");
+        }
+        if (job.getStatus() == IngestionJob.Status.COMPLETED && job.getFailedItems() == 0) {
+            throw new IllegalStateException("Ingestion job has nothing left to ingest");
+        }
+        if (job.isArchive() && !Files.exists(Paths.get(job.getSource()))) {
+            throw new IllegalStateException("Archive of ingestion job is no longer available");
+        }
+
+        job.setStatus(IngestionJob.Status.QUEUED);
+        job.setUpdatedAt(LocalDateTime.now());
+        IngestionJob savedJob = jobRepository.save(job);
+        submit(jobId);
+        return mapToIngestionJobDto(savedJob);
+    }
+
+    // Picks up queued jobs, and jobs whose node stopped reporting progress, e.g. after a restart
+    @Scheduled(fixedDelayString = "${ingestion.resume-check-interval-ms:60000}")
+    public void resumeInterruptedJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        for (IngestionJob job : jobRepository.findByStatusIn(List.of(IngestionJob.Status.QUEUED, IngestionJob.Status.RUNNING))) {
+            if (job.getStatus() == IngestionJob.Status.QUEUED || job.getUpdatedAt().isBefore(staleBefore)) {
+                submit(job.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Jobs stay RUNNING and are resumed once their heartbeat goes stale
+        shuttingDown = true;
+        jobExecutor.shutdownNow();
+        fileExecutor.shutdownNow();
+        heartbeatExecutor.shutdownNow();
+    }
+
+    private IngestionJobDto start(String source, boolean archive, IngestionJobDto request, UUID userId) {
+        LocalDateTime now = LocalDateTime.now();
+        IngestionJob job = jobRepository.save(IngestionJob.builder()
+            .source(source)
+            .archive(archive)
+            .defaultDepartmentId(request.getDefaultDepartmentId())
+            .defaultType(request.getDefaultType())
+            .status(IngestionJob.Status.QUEUED)
+            .createdAt(now)
+            .updatedAt(now)
+            .createdBy(userId)
+            .build());
+
+        submit(job.getId());
+        return mapToIngestionJobDto(job);
+    }
+
+    private void submit(UUID jobId) {
+        if (!runningJobs.add(jobId)) {
+            return;
+        }
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    runningJobs.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    private void run(UUID jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        UUID claimToken = UUID.randomUUID();
+        if (jobRepository.claim(jobId, IngestionJob.Status.RUNNING, now, now.minus(staleAfter), claimToken) == 0) {
+            return;
+        }
+        IngestionJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        long heartbeatMs = Math.max(1000L, staleAfter.toMillis() / 3);
+        ScheduledFuture<?> heartbeat = heartbeatExecutor.scheduleAtFixedRate(() -> heartbeat(job),
+            heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        try (IngestionSource source = job.isArchive()
+                ? new ArchiveSource(Paths.get(job.getSource()))
+                : new DirectorySource(Paths.get(job.getSource()))) {
+            jdbcTemplate.update(TOTAL_SQL, countEntries(source), LocalDateTime.now(), jobId, claimToken);
+
+            try (BufferedReader reader = source.openManifest()) {
+                List<ManifestLine> batch = new ArrayList<>(batchSize);
+                long index = 0;
+                String line;
+                while ((line = reader.readLine()) != null && !shuttingDown) {
+                    if (!line.isBlank()) {
+                        batch.add(new ManifestLine(index, line));
+                    }
+                    index++;
+                    if (batch.size() >= batchSize) {
+                        processBatch(job, source, batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty() && !shuttingDown) {
+                    processBatch(job, source, batch);
+                }
+            }
+            if (shuttingDown) {
+                return;
+            }
+
+            if (jdbcTemplate.update(FINISH_SQL, IngestionJob.Status.COMPLETED.name(), null, LocalDateTime.now(),
+                    jobId, claimToken) == 0) {
+                log.info("Ingestion job {} was taken over by another node", jobId);
+                return;
+            }
+            IngestionJob finished = jobRepository.findById(jobId).orElse(job);
+            log.info("Ingestion job {} completed: {} documents, {} failed entries",
+                jobId, finished.getCompletedItems(), finished.getFailedItems());
+            if (job.isArchive() && finished.getFailedItems() == 0) {
+                Files.deleteIfExists(Paths.get(job.getSource()));
+            }
+        } catch (TakenOverException e) {
+            log.info("Ingestion job {} was taken over by another node", jobId);
+        } catch (Exception e) {
+            if (shuttingDown) {
+                return;
+            }
+            log.warn("Ingestion job {} failed: {}", jobId, e.getMessage());
+            jdbcTemplate.update(FINISH_SQL, IngestionJob.Status.FAILED.name(), truncate(e.getMessage()),
+                LocalDateTime.now(), jobId, claimToken);
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    private void heartbeat(IngestionJob job) {
+        try {
+            jdbcTemplate.update(HEARTBEAT_SQL, LocalDateTime.now(), job.getId(), job.getClaimToken());
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh heartbeat of ingestion job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    // Locks the job row for the rest of the transaction, failing if another node has claimed it
+    private void requireClaim(IngestionJob job) {
+        if (jdbcTemplate.queryForList(OWNER_SQL, UUID.class, job.getId(), job.getClaimToken()).isEmpty()) {
+            throw new TakenOverException();
+        }
+    }
+
+    private void processBatch(IngestionJob job, IngestionSource source, List<ManifestLine> lines) {
+        Set<Long> done = new HashSet<>(jdbcTemplate.queryForList(DONE_SQL, Long.class,
+            job.getId(), lines.get(0).index(), lines.get(lines.size() - 1).index()));
+
+        // Hashing reads every file once; the pool bounds how many are read at a time
+        List<ManifestLine> pending = lines.stream().filter(line -> !done.contains(line.index())).toList();
+        List<CompletableFuture<IngestionItem>> futures = pending.stream()
+            .map(line -> CompletableFuture.supplyAsync(() -> prepare(job, source, line), fileExecutor))
+            .toList();
+
+        List<IngestionItem> items = new ArrayList<>();
+        Map<Long, String> failures = new LinkedHashMap<>();
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                items.add(futures.get(i).join());
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof UncheckedIOException) {
+                    cause = cause.getCause();
+                }
+                failures.put(pending.get(i).index(), cause.getMessage());
+            }
+        }
+
+        // New blobs are uploaded before the batch transaction, so it holds a connection and row
+        // locks only for the inserts
+        Set<String> uploaded = new HashSet<>();
+        Map<String, ContentAddressedStorage.BlobReference> toUpload = blobsOf(items);
+        for (int attempt = 1; !items.isEmpty(); attempt++) {
+            BlobUploadService.Uploads uploads = blobUploadService.upload(toUpload.values(), fileExecutor);
+            removeFailedUploads(items, uploads.failed(), failures);
+            uploaded.addAll(uploads.uploaded());
+            try {
+                transactionTemplate.executeWithoutResult(status -> store(job, items, uploaded));
+                break;
+            } catch (UncheckedIOException e) {
+                if (!(e.getCause() instanceof ContentAddressedStorage.NotStoredException notStored)) {
+                    throw e;
+                }
+                // The deletion worker removed these objects before the references were taken
+                toUpload = new HashMap<>(blobsOf(items));
+                toUpload.keySet().retainAll(notStored.getKeys());
+                if (attempt >= BlobUploadService.MAX_ATTEMPTS) {
+                    removeFailedUploads(items, notStored.getKeys(), failures);
+                    toUpload.clear();
+                }
+            } catch (DataAccessException e) {
+                // Store the entries one at a time so a row the database rejects fails only its entry
+                storeSeparately(job, items, uploaded, failures);
+                break;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            requireClaim(job);
+            if (!failures.isEmpty()) {
+                List<Map.Entry<Long, String>> failed = new ArrayList<>(failures.entrySet());
+                jdbcTemplate.batchUpdate(CHECKPOINT_SQL, failed, failed.size(), (ps, failure) -> {
+                    ps.setObject(1, job.getId());
+                    ps.setLong(2, failure.getKey());
+                    ps.setString(3, IngestionCheckpoint.Status.FAILED.name());
+                    ps.setObject(4, null);
+                    ps.setString(5, truncate(failure.getValue()));
+                });
+            }
+            jdbcTemplate.update(PROGRESS_SQL, LocalDateTime.now(), job.getId(), job.getClaimToken());
+        });
+
+        for (IngestionItem item : items) {
+            nearDuplicateService.indexDocument(item.documentId(), item.entry().content());
+        }
+    }
+
+    private IngestionItem prepare(IngestionJob job, IngestionSource source, ManifestLine line) {
+        try {
+            ManifestEntry entry = objectMapper.readValue(line.json(), ManifestEntry.class);
+            if (entry.path() == null || entry.path().isBlank()) {
+                throw new IllegalArgumentException("path is required");
+            }
+            UUID departmentId = entry.departmentId() != null ? entry.departmentId() : job.getDefaultDepartmentId();
+            if (departmentId == null) {
+                throw new IllegalArgumentException("departmentId is required");
+            }
+            String type = entry.type() != null ? entry.type() : job.getDefaultType();
+            if (type == null) {
+                throw new IllegalArgumentException("type is required");
+            }
+
+            String fileName = Paths.get(entry.path()).getFileName().toString();
+            String contentType = entry.contentType() != null
+                ? entry.contentType()
+                : MediaTypeFactory.getMediaType(fileName).map(MediaType::toString).orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            String title = entry.title() != null && !entry.title().isBlank() ? entry.title() : fileName;
+            requireFits("title", title);
+            requireFits("description", entry.description());
+            requireFits("type", type);
+            requireFits("category", entry.category());
+            requireFits("file name", fileName);
+            requireFits("contentType", contentType);
+            long size = source.size(entry.path());
+            InputStreamSource file = () -> source.open(entry.path());
+
+            return new IngestionItem(line.index(), entry, UUID.randomUUID(), departmentId, type, title,
+                entry.path(), fileName, contentType, size, contentAddressedStorage.keyFor(file), file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void storeSeparately(IngestionJob job, List<IngestionItem> items, Set<String> uploaded,
+                                 Map<Long, String> failures) {
+        Iterator<IngestionItem> iterator = items.iterator();
+        while (iterator.hasNext()) {
+            IngestionItem item = iterator.next();
+            try {
+                transactionTemplate.executeWithoutResult(status -> store(job, List.of(item), uploaded));
+            } catch (UncheckedIOException | DataAccessException e) {
+                failures.put(item.index(), e instanceof DataAccessException dataAccessException
+                    ? dataAccessException.getMostSpecificCause().getMessage()
+                    : "Failed to store file " + item.path());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void store(IngestionJob job, List<IngestionItem> items, Set<String> uploaded) {
+        // Another node that took the job over may be ingesting the same lines
+        requireClaim(job);
+        try {
+            contentAddressedStorage.acquireAll(blobsOf(items).values(), uploaded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_DOCUMENT_SQL, items, items.size(), (ps, item) -> {
+            ps.setObject(1, item.documentId());
+            ps.setString(2, item.title());
+            ps.setString(3, item.entry().description());
+            ps.setString(4, item.entry().content());
+            ps.setString(5, item.type());
+            ps.setString(6, item.entry().category());
+            ps.setObject(7, item.departmentId());
+            ps.setString(8, item.storageKey());
+            ps.setString(9, item.fileName());
+            ps.setString(10, item.contentType());
+            ps.setLong(11, item.fileSize());
+            ps.setObject(12, now);
+            ps.setObject(13, now);
+            ps.setObject(14, job.getCreatedBy());
+            ps.setObject(15, job.getCreatedBy());
+        });
+        jdbcTemplate.batchUpdate(INSERT_VERSION_SQL, items, items.size(), (ps, item) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, item.documentId());
+            ps.setString(3, item.title());
+            ps.setString(4, item.entry().description());
+            ps.setString(5, item.entry().content());
+            ps.setString(6, item.storageKey());
+            ps.setString(7, item.fileName());
+            ps.setString(8, item.contentType());
+            ps.setLong(9, item.fileSize());
+            ps.setObject(10, now);
+            ps.setObject(11, job.getCreatedBy());
+        });
+        jdbcTemplate.batchUpdate(CHECKPOINT_SQL, items, items.size(), (ps, item) -> {
+            ps.setObject(1, job.getId());
+            ps.setLong(2, item.index());
+            ps.setString(3, IngestionCheckpoint.Status.DONE.name());
+            ps.setObject(4, item.documentId());
+            ps.setString(5, null);
+        });
+
+        // Delivered once the batch commits, like the events of single uploads
+        for (IngestionItem item : items) {
+            eventPublisher.publishEvent(DocumentEventDto.builder()
+                .type(DocumentEventDto.Type.CREATED)
+                .documentId(item.documentId())
+                .departmentId(item.departmentId())
+                .title(item.title())
+                .userId(job.getCreatedBy())
+                .occurredAt(now)
+                .build());
+        }
+    }
+
+    // One reference per entry; entries with the same content share a blob
+    private static Map<String, ContentAddressedStorage.BlobReference> blobsOf(List<IngestionItem> items) {
+        Map<String, ContentAddressedStorage.BlobReference> blobs = new HashMap<>();
+        for (IngestionItem item : items) {
+            blobs.merge(item.storageKey(),
+                new ContentAddressedStorage.BlobReference(item.storageKey(), item.file(), item.fileSize(), item.contentType(), 1),
+                (existing, added) -> new ContentAddressedStorage.BlobReference(existing.key(), existing.source(),
+                    existing.size(), existing.contentType(), existing.references() + 1));
+        }
+        return blobs;
+    }
+
+    private static void removeFailedUploads(List<IngestionItem> items, Set<String> failedKeys, Map<Long, String> failures) {
+        items.removeIf(item -> {
+            if (failedKeys.contains(item.storageKey())) {
+                failures.put(item.index(), "Failed to store file " + item.path());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static void requireFits(String field, String value) {
+        if (value != null && value.length() > MAX_COLUMN_LENGTH) {
+            throw new IllegalArgumentException(field + " is longer than " + MAX_COLUMN_LENGTH + " characters");
+        }
+    }
+
+    private static long countEntries(IngestionSource source) throws IOException {
+        try (BufferedReader reader = source.openManifest()) {
+            return reader.lines().filter(line -> !line.isBlank()).count();
+        }
+    }
+
+    private IngestionJob findJob(UUID jobId) {
+        return jobRepository.findById(jobId)
+            .orElseThrow(() -> new ResourceNotFoundException("Ingestion job not found with id: " + jobId));
+    }
+
+    private IngestionJobDto mapToIngestionJobDto(IngestionJob job) {
+        return IngestionJobDto.builder()
+            .id(job.getId())
+            .source(job.getSource())
+            .defaultDepartmentId(job.getDefaultDepartmentId())
+            .defaultType(job.getDefaultType())
+            .status(job.getStatus().name())
+            .totalItems(job.getTotalItems())
+            .completedItems(job.getCompletedItems())
+            .failedItems(job.getFailedItems())
+            .lastError(job.getLastError())
+            .createdAt(job.getCreatedAt())
+            .updatedAt(job.getUpdatedAt())
+            .createdBy(job.getCreatedBy())
+            .build();
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // One line of the manifest; only path is required
+    private record ManifestEntry(String path, String title, String description, String content,
+                                 String type, String category, UUID departmentId, String contentType) {
+    }
+
+    private record ManifestLine(long index, String json) {
+    }
+
+    private record IngestionItem(long index, ManifestEntry entry, UUID documentId, UUID departmentId, String type,
+                                 String title, String path, String fileName, String contentType, long fileSize,
+                                 String storageKey, InputStreamSource file) {
+    }
+
+    private static final class TakenOverException extends RuntimeException {
+        private TakenOverException() {
+            super("Ingestion job was taken over by another node");
+        }
+    }
+
+    private interface IngestionSource extends Closeable {
+        BufferedReader openManifest() throws IOException;
+
+        long size(String path) throws IOException;
+
+        InputStream open(String path) throws IOException;
+    }
+
+    private static final class DirectorySource implements IngestionSource {
+        private final Path root;
+
+        private DirectorySource(Path root) {
+            this.root = root;
+        }
+
+        @Override
+        public BufferedReader openManifest() throws IOException {
+            return Files.newBufferedReader(root.resolve(MANIFEST_NAME), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long size(String path) throws IOException {
+            return Files.size(resolve(path));
+        }
+
+        @Override
+        public InputStream open(String path) throws IOException {
+            return Files.newInputStream(resolve(path));
+        }
+
+        @Override
+        public void close() {
+            // Nothing held open
+        }
+
+        // Manifest paths may not point outside the directory being ingested
+        private Path resolve(String path) throws IOException {
+            Path file = root.resolve(path).normalize();
+            if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+                throw new FileNotFoundException("File not found: " + path);
+            }
+            return file;
+        }
+    }
+
+    private static final class ArchiveSource implements IngestionSource {
+        private final ZipFile zip;
+
+        private ArchiveSource(Path archive) throws IOException {
+            this.zip = new ZipFile(archive.toFile(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public BufferedReader openManifest() throws IOException {
+            return new BufferedReader(new InputStreamReader(open(MANIFEST_NAME), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public long size(String path) throws IOException {
+            return entry(path).getSize();
+        }
+
+        @Override
+        public InputStream open(String path) throws IOException {
+            return zip.getInputStream(entry(path));
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+
+        private ZipEntry entry(String path) throws IOException {
+            ZipEntry entry = zip.getEntry(path);
+            if (entry == null || entry.isDirectory()) {
+                throw new FileNotFoundException("File not found in archive: " + path);
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.dms.document.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// Stores uploads under the SHA-256 of their content with a reference count, so identical
+// files are kept once. A blob whose count drops to zero keeps its row until the deletion
+// worker has removed the object, so a re-upload in the meantime cannot lose its content.
+// Objects are never uploaded in a transaction: BlobUploadService reserves their rows, uploads
+// them with no transaction open, and the caller then takes its references with acquireAll.
+@Service
+@RequiredArgsConstructor
+public class ContentAddressedStorage {
+
+    public static final String KEY_PREFIX = "cas/";
+
+    private static final String ACQUIRE_ALL_SQL =
+        "INSERT INTO stored_blobs (digest, storage_key, size, content_type, ref_count, created_at) " +
+        "SELECT t.digest, t.storage_key, t.size, t.content_type, t.refs, now() " +
+        "FROM unnest(?, ?, ?, ?, ?) AS t(digest, storage_key, size, content_type, refs) " +
+        "ON CONFLICT (digest) DO UPDATE SET ref_count = stored_blobs.ref_count + EXCLUDED.ref_count " +
+        "RETURNING storage_key, ref_count";
+
+    private static final String RESERVE_SQL =
+        "INSERT INTO stored_blobs (digest, storage_key, size, content_type, ref_count, created_at) " +
+        "SELECT t.digest, t.storage_key, t.size, t.content_type, 0, now() " +
+        "FROM unnest(?, ?, ?, ?) AS t(digest, storage_key, size, content_type) " +
+        "ON CONFLICT (digest) DO UPDATE SET ref_count = stored_blobs.ref_count " +
+        "WHERE stored_blobs.ref_count <= 0 " +
+        "RETURNING storage_key";
+
+    private static final String LOCK_PRESENT_SQL =
+        "SELECT storage_key FROM stored_blobs WHERE storage_key = ANY(?) FOR UPDATE";
+
+    private static final String RELEASE_SQL =
+        "UPDATE stored_blobs SET ref_count = ref_count - 1 WHERE storage_key = ? RETURNING ref_count";
+
+    private static final String LOCK_UNREFERENCED_SQL =
+        "SELECT storage_key FROM stored_blobs WHERE storage_key = ANY(?) AND ref_count <= 0 FOR UPDATE";
+
+    private static final String FORGET_SQL =
+        "DELETE FROM stored_blobs WHERE storage_key = ANY(?) AND ref_count <= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageBackend storageBackend;
+    private final DiskObjectCache diskObjectCache;
+
+    // Hashes the spooled upload; cheap next to the network transfer it may let us skip
+    public String keyFor(InputStreamSource source) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream inputStream = new DigestInputStream(source.getInputStream(), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return keyForDigest(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public static String keyForDigest(String hexDigest) {
+        // Two-character fan-out keeps any single prefix from getting hot
+        return KEY_PREFIX + hexDigest.substring(0, 2) + "/" + hexDigest;
+    }
+
+    public static boolean isContentAddressed(String key) {
+        return key != null && key.startsWith(KEY_PREFIX);
+    }
+
+    // Reserves the row of each blob that is not referenced and returns their keys: rows are
+    // added for new content and locked for content waiting on the deletion worker. The caller
+    // uploads those blobs with upload once this transaction commits and then takes its
+    // references with acquireAll; a reserved row nobody references is left to the deletion worker.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Set<String> reserve(Collection<BlobReference> blobs) {
+        if (blobs.isEmpty()) {
+            return Set.of();
+        }
+        List<BlobReference> unique = unique(blobs);
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RESERVE_SQL);
+            setBlobArrays(connection, statement, unique);
+            return statement;
+        }, (rs, rowNum) -> rs.getString("storage_key")));
+    }
+
+    // Uploads the blobs in parallel on executor and returns the keys whose upload failed. Never
+    // runs in a transaction, which would hold its connection and row locks for the transfer.
+    public Set<String> upload(Collection<BlobReference> blobs, Executor executor) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Blobs must be uploaded outside a transaction");
+        }
+        Set<String> failed = Collections.synchronizedSet(new HashSet<>());
+        CompletableFuture.allOf(unique(blobs).stream()
+            .map(blob -> CompletableFuture.runAsync(() -> {
+                try (InputStream inputStream = blob.source().getInputStream()) {
+                    storageBackend.putObject(blob.key(), inputStream, blob.size(), blob.contentType());
+                    diskObjectCache.invalidate(blob.key());
+                } catch (Exception e) {
+                    failed.add(blob.key());
+                    throw new CompletionException(e);
+                }
+            }, executor))
+            .toArray(CompletableFuture[]::new))
+            .exceptionally(e -> null)
+            .join();
+        return failed;
+    }
+
+    // Takes blob.references references on each blob with one statement. A blob that was
+    // unreferenced must be in uploaded with its reserved row still there; otherwise the deletion
+    // worker may have removed its object, and this fails with NotStoredException naming the keys
+    // to reserve and upload again. Nothing is uploaded here.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void acquireAll(Collection<BlobReference> blobs, Set<String> uploaded) throws IOException {
+        if (blobs.isEmpty()) {
+            return;
+        }
+        Map<String, BlobReference> byKey = new HashMap<>();
+        blobs.forEach(blob -> byKey.put(blob.key(), blob));
+        List<BlobReference> unique = new ArrayList<>(byKey.values());
+
+        // The deletion worker forgets a row only after deleting its object, under the same lock
+        Set<String> stored = new HashSet<>();
+        List<String> candidates = unique.stream().map(BlobReference::key).filter(uploaded::contains).toList();
+        if (!candidates.isEmpty()) {
+            stored.addAll(jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(LOCK_PRESENT_SQL);
+                statement.setArray(1, connection.createArrayOf("varchar", candidates.toArray()));
+                return statement;
+            }, (rs, rowNum) -> rs.getString("storage_key")));
+        }
+
+        // A count equal to the references just taken means the blob was unreferenced before
+        Set<String> missing = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ACQUIRE_ALL_SQL);
+            setBlobArrays(connection, statement, unique);
+            statement.setArray(5, connection.createArrayOf("integer", unique.stream().map(BlobReference::references).toArray()));
+            return statement;
+        }, rs -> {
+            BlobReference blob = byKey.get(rs.getString("storage_key"));
+            if (rs.getInt("ref_count") == blob.references() && !stored.contains(blob.key())) {
+                missing.add(blob.key());
+            }
+        });
+
+        if (!missing.isEmpty()) {
+            throw new NotStoredException(missing);
+        }
+    }
+
+    // Drops one reference and returns true when the object itself should now be deleted.
+    // Keys that were never content-addressed have no reference count and are always deleted.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean release(String key) {
+        if (!isContentAddressed(key)) {
+            return true;
+        }
+
+        List<Integer> remaining = jdbcTemplate.queryForList(RELEASE_SQL, Integer.class, key);
+        return remaining.isEmpty() || remaining.get(0) <= 0;
+    }
+
+    // Locks the blobs among keys that are still unreferenced and returns their keys. Holding
+    // the lock until the object is gone makes a concurrent acquire wait and then upload afresh.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<String> lockUnreferenced(Collection<String> keys) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_UNREFERENCED_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", keys.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString("storage_key"));
+    }
+
+    // Drops the rows of blobs whose objects have been deleted
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void forget(Collection<String> keys) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FORGET_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", keys.toArray()));
+            return statement;
+        });
+    }
+
+    public record BlobReference(String key, InputStreamSource source, long size, String contentType, int references) {
+    }
+
+    public static class NotStoredException extends IOException {
+        private final Set<String> keys;
+
+        public NotStoredException(Set<String> keys) {
+            super(keys.size() + " blobs are not stored");
+            this.keys = Set.copyOf(keys);
+        }
+
+        public Set<String> getKeys() {
+            return keys;
+        }
+    }
+
+    private static List<BlobReference> unique(Collection<BlobReference> blobs) {
+        Map<String, BlobReference> byKey = new LinkedHashMap<>();
+        blobs.forEach(blob -> byKey.putIfAbsent(blob.key(), blob));
+        return new ArrayList<>(byKey.values());
+    }
+
+    private static void setBlobArrays(Connection connection, PreparedStatement statement,
+                                      List<BlobReference> blobs) throws SQLException {
+        statement.setArray(1, connection.createArrayOf("varchar",
+            blobs.stream().map(blob -> blob.key().substring(blob.key().lastIndexOf('/') + 1)).toArray()));
+        statement.setArray(2, connection.createArrayOf("varchar", blobs.stream().map(BlobReference::key).toArray()));
+        statement.setArray(3, connection.createArrayOf("bigint", blobs.stream().map(BlobReference::size).toArray()));
+        statement.setArray(4, connection.createArrayOf("varchar", blobs.stream().map(BlobReference::contentType).toArray()));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
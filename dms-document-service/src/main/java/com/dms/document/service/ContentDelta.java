@@ -0,0 +1,129 @@
+package com.dms.document.service;
+
+import java.util.*;
+
+// Line-based copy/insert delta between two versions of a document's content.
+// Encoded as a sequence of "C<line>,<count>;" (copy lines from the base) and
+// "I<length>:<text>" (insert literal text) operations.
+final class ContentDelta {
+
+    // Upper bound on base positions inspected per line, keeps encoding linear on repetitive text
+    private static final int MAX_CANDIDATES = 8;
+
+    private ContentDelta() {
+    }
+
+    static String encode(String base, String target) {
+        List<String> baseLines = splitLines(base);
+        List<String> targetLines = splitLines(target);
+
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < baseLines.size(); i++) {
+            positions.computeIfAbsent(baseLines.get(i), line -> new ArrayList<>()).add(i);
+        }
+
+        StringBuilder delta = new StringBuilder();
+        StringBuilder pendingInsert = new StringBuilder();
+        int expectedBase = 0;
+        int i = 0;
+        while (i < targetLines.size()) {
+            int bestStart = -1;
+            int bestLength = 0;
+
+            // Prefer continuing right after the previous copy, then try other occurrences
+            if (expectedBase < baseLines.size() && baseLines.get(expectedBase).equals(targetLines.get(i))) {
+                bestStart = expectedBase;
+                bestLength = matchLength(baseLines, expectedBase, targetLines, i);
+            }
+            List<Integer> candidates = positions.getOrDefault(targetLines.get(i), Collections.emptyList());
+            for (int c = 0; c < candidates.size() && c < MAX_CANDIDATES; c++) {
+                int start = candidates.get(c);
+                if (start == expectedBase) {
+                    continue;
+                }
+                int length = matchLength(baseLines, start, targetLines, i);
+                if (length > bestLength) {
+                    bestStart = start;
+                    bestLength = length;
+                }
+            }
+
+            if (bestLength == 0) {
+                pendingInsert.append(targetLines.get(i));
+                i++;
+                continue;
+            }
+
+            flushInsert(delta, pendingInsert);
+            delta.append('C').append(bestStart).append(',').append(bestLength).append(';');
+            expectedBase = bestStart + bestLength;
+            i += bestLength;
+        }
+        flushInsert(delta, pendingInsert);
+        return delta.toString();
+    }
+
+    static String apply(String base, String delta) {
+        List<String> baseLines = splitLines(base);
+        StringBuilder result = new StringBuilder();
+
+        int pos = 0;
+        while (pos < delta.length()) {
+            char op = delta.charAt(pos);
+            if (op == 'C') {
+                int comma = delta.indexOf(',', pos);
+                int end = delta.indexOf(';', comma);
+                int start = Integer.parseInt(delta.substring(pos + 1, comma));
+                int count = Integer.parseInt(delta.substring(comma + 1, end));
+                for (int line = start; line < start + count; line++) {
+                    result.append(baseLines.get(line));
+                }
+                pos = end + 1;
+            } else if (op == 'I') {
+                int colon = delta.indexOf(':', pos);
+                int length = Integer.parseInt(delta.substring(pos + 1, colon));
+                result.append(delta, colon + 1, colon + 1 + length);
+                pos = colon + 1 + length;
+            } else {
+                throw new IllegalStateException("Corrupt content delta at offset " + pos);
+            }
+        }
+        return result.toString();
+    }
+
+    private static int matchLength(List<String> baseLines, int baseStart, List<String> targetLines, int targetStart) {
+        int length = 0;
+        while (baseStart + length < baseLines.size()
+                && targetStart + length < targetLines.size()
+                && baseLines.get(baseStart + length).equals(targetLines.get(targetStart + length))) {
+            length++;
+        }
+        return length;
+    }
+
+    private static void flushInsert(StringBuilder delta, StringBuilder pendingInsert) {
+        if (pendingInsert.length() > 0) {
+            delta.append('I').append(pendingInsert.length()).append(':').append(pendingInsert);
+            pendingInsert.setLength(0);
+        }
+    }
+
+    // Splits into lines that keep their terminators, so concatenation restores the input exactly
+    private static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return lines;
+        }
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+}
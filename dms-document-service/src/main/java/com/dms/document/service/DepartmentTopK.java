@@ -0,0 +1,61 @@
+package com.dms.document.service;
+
+import java.util.*;
+
+// Bounded "most viewed" ranking for a single department. Holds at most capacity
+// documents; a document outside the ranking only gets in once its total exceeds
+// the current minimum.
+final class DepartmentTopK {
+
+    private final int capacity;
+    private final Map<UUID, Long> counts = new HashMap<>();
+    private final TreeSet<UUID> ranking;
+
+    DepartmentTopK(int capacity) {
+        this.capacity = capacity;
+        this.ranking = new TreeSet<>(Comparator
+            .comparing((UUID documentId) -> counts.get(documentId), Comparator.reverseOrder())
+            .thenComparing(Comparator.naturalOrder()));
+    }
+
+    synchronized void offer(UUID documentId, long total) {
+        Long current = counts.get(documentId);
+        if (current != null) {
+            ranking.remove(documentId);
+            counts.put(documentId, total);
+            ranking.add(documentId);
+            return;
+        }
+
+        if (counts.size() >= capacity) {
+            UUID lowest = ranking.last();
+            if (counts.get(lowest) >= total) {
+                return;
+            }
+            ranking.remove(lowest);
+            counts.remove(lowest);
+        }
+        counts.put(documentId, total);
+        ranking.add(documentId);
+    }
+
+    // Null when the document is not ranked
+    synchronized Long get(UUID documentId) {
+        return counts.get(documentId);
+    }
+
+    synchronized void remove(UUID documentId) {
+        if (counts.containsKey(documentId)) {
+            ranking.remove(documentId);
+            counts.remove(documentId);
+        }
+    }
+
+    synchronized Map<UUID, Long> snapshot() {
+        Map<UUID, Long> result = new LinkedHashMap<>();
+        for (UUID documentId : ranking) {
+            result.put(documentId, counts.get(documentId));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,185 @@
+package com.dms.document.service;
+
+import com.dms.document.client.DepartmentServiceClient;
+import com.dms.document.client.UserServiceClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+// Department and user name lookups against dms-user-service. Each Feign client sits behind its
+// own Resilience4j bulkhead and circuit breaker: Feign's timeouts bound a single call, and
+// once calls keep failing or running slow the breaker opens and further calls fail at once
+// instead of waiting. A failed lookup answers with the last name seen for the id, if any.
+// Concurrent lookups of the same id share one call, so a burst of requests for the same few
+// departments and users costs dms-user-service a single request per id. The shared call runs
+// on a thread of its own: a caller that gives up only stops waiting, and the call still
+// answers the callers that keep waiting.
+@Service
+public class DirectoryLookupService {
+
+    private final UserServiceClient userServiceClient;
+    private final DepartmentServiceClient departmentServiceClient;
+    private final ExecutorService callExecutor;
+    private final Guarded users;
+    private final Guarded departments;
+
+    public DirectoryLookupService(UserServiceClient userServiceClient,
+                                  DepartmentServiceClient departmentServiceClient,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${lookups.failure-rate-threshold:50}") float failureRateThreshold,
+                                  @Value("${lookups.slow-call-threshold:PT1S}") Duration slowCallThreshold,
+                                  @Value("${lookups.open-duration:PT10S}") Duration openDuration,
+                                  @Value("${lookups.max-concurrent-calls:32}") int maxConcurrentCalls,
+                                  @Value("${lookups.last-known.max-entries:10000}") long lastKnownMaxEntries,
+                                  @Value("${lookups.last-known.ttl:PT6H}") Duration lastKnownTtl) {
+        this.userServiceClient = userServiceClient;
+        this.departmentServiceClient = departmentServiceClient;
+        // Calls only wait on dms-user-service; the bulkheads bound how many run at once
+        this.callExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("directory-lookup").factory());
+
+        CircuitBreakerRegistry breakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(50)
+            .minimumNumberOfCalls(20)
+            .failureRateThreshold(failureRateThreshold)
+            .slowCallRateThreshold(failureRateThreshold)
+            .slowCallDurationThreshold(slowCallThreshold)
+            .waitDurationInOpenState(openDuration)
+            .permittedNumberOfCallsInHalfOpenState(5)
+            .recordException(DirectoryLookupService::isFailure)
+            .build());
+        // No waiting for a permit: a full bulkhead means the service is already backed up
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+            .maxConcurrentCalls(maxConcurrentCalls)
+            .maxWaitDuration(Duration.ZERO)
+            .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(breakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+
+        this.users = new Guarded("userServiceClient", breakers, bulkheads, callExecutor, meterRegistry,
+            lastKnownMaxEntries, lastKnownTtl);
+        this.departments = new Guarded("departmentServiceClient", breakers, bulkheads, callExecutor, meterRegistry,
+            lastKnownMaxEntries, lastKnownTtl);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callExecutor.shutdownNow();
+    }
+
+    // Null when the user is unknown here and dms-user-service cannot tell
+    public String getUserName(UUID userId) {
+        return users.lookup(userId, () -> userServiceClient.getUserById(userId).getName());
+    }
+
+    // Null when the department is unknown here and dms-user-service cannot tell
+    public String getDepartmentName(UUID departmentId) {
+        return departments.lookup(departmentId, () -> departmentServiceClient.getDepartmentById(departmentId).getName());
+    }
+
+    // A 4xx means the service answered; only errors and timeouts count against the breaker
+    private static boolean isFailure(Throwable e) {
+        return !(e instanceof FeignException feignException
+            && feignException.status() >= 400 && feignException.status() < 500);
+    }
+
+    private static final class Guarded {
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+        private final Executor executor;
+        private final Cache<UUID, String> lastKnown;
+        private final ConcurrentHashMap<UUID, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+        private final Counter fallbackCounter;
+        private final Counter coalescedCounter;
+
+        private Guarded(String name, CircuitBreakerRegistry breakers, BulkheadRegistry bulkheads, Executor executor,
+                        MeterRegistry meterRegistry, long lastKnownMaxEntries, Duration lastKnownTtl) {
+            this.circuitBreaker = breakers.circuitBreaker(name);
+            this.bulkhead = bulkheads.bulkhead(name);
+            this.executor = executor;
+            this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(lastKnownMaxEntries)
+                .expireAfterWrite(lastKnownTtl)
+                .build();
+            this.fallbackCounter = meterRegistry.counter("dms.lookups.fallbacks", "client", name);
+            this.coalescedCounter = meterRegistry.counter("dms.lookups.coalesced", "client", name);
+        }
+
+        private String lookup(UUID id, Supplier<String> call) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            CompletableFuture<String> existing = inFlight.putIfAbsent(id, future);
+            if (existing != null) {
+                coalescedCounter.increment();
+            } else {
+                start(id, call, future);
+            }
+
+            try {
+                return (existing != null ? existing : future).get();
+            } catch (InterruptedException e) {
+                // Cancelled by the caller's deadline; only this caller stops waiting
+                Thread.currentThread().interrupt();
+                return lastKnown.getIfPresent(id);
+            } catch (ExecutionException e) {
+                return lastKnown.getIfPresent(id);
+            }
+        }
+
+        private void start(UUID id, Supplier<String> call, CompletableFuture<String> future) {
+            try {
+                executor.execute(() -> {
+                    String name = null;
+                    try {
+                        name = call(id, call);
+                    } finally {
+                        future.complete(name);
+                        inFlight.remove(id, future);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                inFlight.remove(id, future);
+                future.complete(lastKnown.getIfPresent(id));
+            }
+        }
+
+        // The bulkhead is outside the breaker, so shed calls do not count as failures
+        private String call(UUID id, Supplier<String> call) {
+            try {
+                String name = Bulkhead.decorateSupplier(bulkhead,
+                    CircuitBreaker.decorateSupplier(circuitBreaker, call)).get();
+                if (name != null) {
+                    lastKnown.put(id, name);
+                }
+                return name;
+            } catch (RuntimeException e) {
+                fallbackCounter.increment();
+                return lastKnown.getIfPresent(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.dms.document.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Optional read-through cache of remote objects on the local disk, so hot files are served
+// with sendfile instead of a fresh storage GET. A miss is served from storage as usual
+// while the object is copied to disk in the background, so no request waits for a fill.
+// Entries are evicted least recently used once the cache exceeds its size bound. A file
+// that is evicted while leased is deleted only after its last lease is closed and the
+// delete delay has passed. The index lives in memory; the directory is cleared on startup.
+@Slf4j
+@Service
+public class DiskObjectCache {
+
+    private final StorageBackend storageBackend;
+    private final boolean enabled;
+    private final Path root;
+    private final long maxBytes;
+    private final long maxObjectBytes;
+    private final long deleteDelayMillis;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Keys being copied to disk
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor fillExecutor;
+    private final ScheduledExecutorService deleteExecutor;
+    private long totalBytes;
+    // Open leases per file, and evicted files waiting for their leases to close
+    private final Map<Path, Integer> readers = new HashMap<>();
+    private final Set<Path> retired = new HashSet<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public DiskObjectCache(StorageBackend storageBackend,
+                           MeterRegistry meterRegistry,
+                           @Value("${storage.cache.enabled:false}") boolean enabled,
+                           @Value("${storage.cache.dir:${java.io.tmpdir}/dms-object-cache}") String root,
+                           @Value("${storage.cache.max-bytes:10737418240}") long maxBytes,
+                           @Value("${storage.cache.max-object-bytes:268435456}") long maxObjectBytes,
+                           @Value("${storage.cache.fill-threads:2}") int fillThreads,
+                           @Value("${storage.cache.fill-queue-capacity:64}") int fillQueueCapacity,
+                           @Value("${storage.cache.delete-delay:PT30S}") Duration deleteDelay) throws IOException {
+        this.storageBackend = storageBackend;
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = maxObjectBytes;
+        this.deleteDelayMillis = deleteDelay.toMillis();
+        this.enabled = enabled;
+        // Misses beyond the queue are not cached this time; the next request for them tries again
+        this.fillExecutor = new ThreadPoolExecutor(fillThreads, fillThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(fillQueueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "object-cache-fill");
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.deleteExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "object-cache-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (this.enabled) {
+            FileSystemUtils.deleteRecursively(this.root);
+            Files.createDirectories(this.root);
+        }
+
+        this.hitCounter = meterRegistry.counter("dms.storage.cache.hits");
+        this.missCounter = meterRegistry.counter("dms.storage.cache.misses");
+        Gauge.builder("dms.storage.cache.bytes", this, DiskObjectCache::cachedBytes).register(meterRegistry);
+    }
+
+    // Lease on the local copy of the object described by head; the file is not deleted until
+    // the lease is closed. Empty when the cache is disabled, the object is too large to cache
+    // or not cached yet; a miss starts filling the cache in the background.
+    public Optional<Lease> acquire(StoredObject head) {
+        if (!enabled || head.getContentLength() <= 0 || head.getContentLength() > maxObjectBytes) {
+            return Optional.empty();
+        }
+
+        synchronized (this) {
+            CachedObject cached = entries.get(head.getKey());
+            if (cached != null && cached.eTag.equals(head.getETag())) {
+                hitCounter.increment();
+                readers.merge(cached.path, 1, Integer::sum);
+                return Optional.of(new Lease(cached.path));
+            }
+        }
+        missCounter.increment();
+        fill(head);
+        return Optional.empty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fillExecutor.shutdownNow();
+        deleteExecutor.shutdownNow();
+    }
+
+    // Concurrent misses on the same key start a single fetch
+    private void fill(StoredObject head) {
+        if (!loading.add(head.getKey())) {
+            return;
+        }
+        try {
+            fillExecutor.execute(() -> {
+                try {
+                    fetch(head);
+                } catch (Exception e) {
+                    log.warn("Failed to cache stored object {}: {}", head.getKey(), e.getMessage());
+                } finally {
+                    loading.remove(head.getKey());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(head.getKey());
+        }
+    }
+
+    public void invalidate(String key) {
+        if (!enabled) {
+            return;
+        }
+        CachedObject removed;
+        synchronized (this) {
+            removed = entries.remove(key);
+            if (removed != null) {
+                totalBytes -= removed.size;
+            }
+        }
+        if (removed != null) {
+            evict(removed.path);
+        }
+    }
+
+    public void invalidateAll(Collection<String> keys) {
+        keys.forEach(this::invalidate);
+    }
+
+    private Path fetch(StoredObject head) throws IOException {
+        // A fresh name per fill, so a retired file of the same object is never overwritten
+        Path target = root.resolve(UUID.nameUUIDFromBytes(head.getKey().getBytes(StandardCharsets.UTF_8)) + "-"
+            + UUID.randomUUID());
+        Path temp = Files.createTempFile(root, ".fetch-", ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            storageBackend.writeRange(head.getKey(), 0, head.getContentLength() - 1, head.getETag(),
+                Channels.newOutputStream(channel));
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            CachedObject previous = entries.put(head.getKey(), new CachedObject(target, head.getContentLength(), head.getETag()));
+            if (previous != null) {
+                totalBytes -= previous.size;
+                evicted.add(previous.path);
+            }
+            totalBytes += head.getContentLength();
+
+            Iterator<CachedObject> iterator = entries.values().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                CachedObject eldest = iterator.next();
+                if (eldest.path.equals(target)) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= eldest.size;
+                evicted.add(eldest.path);
+            }
+        }
+
+        evicted.forEach(this::evict);
+        return target;
+    }
+
+    // Deletes a file that has left the index now, or once its leases are closed
+    private void evict(Path path) {
+        synchronized (this) {
+            if (readers.containsKey(path)) {
+                retired.add(path);
+                return;
+            }
+        }
+        deleteQuietly(path);
+    }
+
+    private void release(Path path) {
+        synchronized (this) {
+            if (readers.merge(path, -1, Integer::sum) > 0) {
+                return;
+            }
+            readers.remove(path);
+            if (!retired.contains(path)) {
+                return;
+            }
+        }
+        // Sendfile opens the file after the request has completed, so a retired file is kept
+        // for the delete delay after its last lease is closed
+        try {
+            deleteExecutor.schedule(() -> {
+                synchronized (this) {
+                    retired.remove(path);
+                }
+                deleteQuietly(path);
+            }, deleteDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Shutting down, not deleting cached file {}", path);
+        }
+    }
+
+    private synchronized long cachedBytes() {
+        return totalBytes;
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete cached file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record CachedObject(Path path, long size, String eTag) {
+    }
+
+    public final class Lease implements AutoCloseable {
+        private final Path path;
+        private boolean closed;
+
+        private Lease(Path path) {
+            this.path = path;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        @Override
+        public void close() {
+            synchronized (DiskObjectCache.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            release(path);
+        }
+    }
+}
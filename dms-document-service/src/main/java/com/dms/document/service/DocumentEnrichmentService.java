@@ -0,0 +1,117 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.DocumentDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// Fills in the department and user names of documents from dms-user-service. Each distinct id
+// is looked up once and all lookups run concurrently on a bounded pool, so a response waits
+// about as long as its slowest lookup rather than their sum. Lookups still running at the
+// deadline are cancelled and their names fall back to "Unknown".
+@Service
+public class DocumentEnrichmentService {
+
+    private static final String UNKNOWN_DEPARTMENT = "Unknown Department";
+    private static final String UNKNOWN_USER = "Unknown";
+
+    private final DirectoryLookupService directoryLookupService;
+    private final ThreadPoolExecutor executor;
+    private final long deadlineNanos;
+
+    private final Counter timedOutCounter;
+    private final Counter rejectedCounter;
+
+    public DocumentEnrichmentService(DirectoryLookupService directoryLookupService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${enrichment.threads:32}") int threads,
+                                     @Value("${enrichment.queue-capacity:1000}") int queueCapacity,
+                                     @Value("${enrichment.deadline-ms:2000}") long deadlineMs,
+                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.directoryLookupService = directoryLookupService;
+        // Cancelling a lookup frees its thread at once; the shared directory call keeps running
+        // for the other requests waiting on it
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), virtualThreads
+                ? Thread.ofVirtual().name("document-enrichment").factory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "document-enrichment");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+
+        this.timedOutCounter = meterRegistry.counter("dms.enrichment.timed-out");
+        this.rejectedCounter = meterRegistry.counter("dms.enrichment.rejected");
+        meterRegistry.gaugeCollectionSize("dms.enrichment.queued", Tags.empty(), executor.getQueue());
+    }
+
+    public void enrich(List<DocumentDto> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Future<String>> departmentLookups = new HashMap<>();
+        Map<UUID, Future<String>> userLookups = new HashMap<>();
+        for (DocumentDto document : documents) {
+            departmentLookups.computeIfAbsent(document.getDepartmentId(),
+                id -> submit(() -> directoryLookupService.getDepartmentName(id)));
+            userLookups.computeIfAbsent(document.getCreatedBy(),
+                id -> submit(() -> directoryLookupService.getUserName(id)));
+            userLookups.computeIfAbsent(document.getUpdatedBy(),
+                id -> submit(() -> directoryLookupService.getUserName(id)));
+        }
+
+        // One deadline for the whole response, however many lookups it needs
+        long deadline = System.nanoTime() + deadlineNanos;
+        Map<UUID, String> departmentNames = await(departmentLookups, deadline, UNKNOWN_DEPARTMENT);
+        Map<UUID, String> userNames = await(userLookups, deadline, UNKNOWN_USER);
+
+        for (DocumentDto document : documents) {
+            document.setDepartmentName(departmentNames.get(document.getDepartmentId()));
+            document.setCreatedByName(userNames.get(document.getCreatedBy()));
+            document.setUpdatedByName(userNames.get(document.getUpdatedBy()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // A saturated pool sheds the lookup, so overload shows up as "Unknown" rather than latency
+    private Future<String> submit(Callable<String> lookup) {
+        try {
+            return executor.submit(lookup);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Map<UUID, String> await(Map<UUID, Future<String>> lookups, long deadline, String fallback) {
+        Map<UUID, String> names = new HashMap<>();
+        lookups.forEach((id, lookup) -> {
+            String name = null;
+            try {
+                name = lookup.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                lookup.cancel(true);
+                timedOutCounter.increment();
+            } catch (InterruptedException e) {
+                lookup.cancel(true);
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException e) {
+                // Lookup failed; use the fallback
+            }
+            names.put(id, name != null ? name : fallback);
+        });
+        return names;
+    }
+}
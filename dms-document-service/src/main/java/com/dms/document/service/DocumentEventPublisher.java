@@ -0,0 +1,199 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.DocumentEventDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Single in-process publisher that fans committed document changes out to SSE subscribers.
+// Every subscriber has its own bounded queue drained on its own virtual thread, so a slow
+// client only ever loses its own oldest events and never holds up the others. A subscriber
+// whose write blocks longer than the write timeout is dropped.
+@Slf4j
+@Service
+public class DocumentEventPublisher {
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final long writeTimeoutNanos;
+    private final Counter droppedCounter;
+    private final Counter stalledCounter;
+
+    public DocumentEventPublisher(MeterRegistry meterRegistry,
+                                  @Value("${events.subscriber-buffer-size:64}") int bufferSize,
+                                  @Value("${events.max-subscribers:2000}") int maxSubscribers,
+                                  @Value("${events.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                                  @Value("${events.write-timeout-ms:10000}") long writeTimeoutMs) {
+        // A write blocked on a client's full socket parks only that subscriber's virtual thread
+        this.dispatcher = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("document-events").factory());
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        this.droppedCounter = meterRegistry.counter("dms.events.dropped");
+        this.stalledCounter = meterRegistry.counter("dms.events.stalled");
+        meterRegistry.gaugeCollectionSize("dms.events.subscribers", Tags.empty(), subscribers);
+    }
+
+    // departmentIds is null for subscribers that may see every department
+    public SseEmitter subscribe(Set<UUID> departmentIds) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, departmentIds, bufferSize);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentEvent(DocumentEventDto event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(event)) {
+                enqueue(subscriber, event);
+            }
+        }
+    }
+
+    // Keeps idle connections open through proxies and detects clients that went away. Only idle
+    // subscribers need one, and a heartbeat never pushes an event out of a full queue.
+    @Scheduled(fixedDelayString = "${events.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue.isEmpty() && subscriber.queue.offer(HEARTBEAT)) {
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    // Drops subscribers that stopped reading; their blocked write is interrupted and, failing
+    // that, ends with the connection's own socket timeout
+    @Scheduled(fixedDelayString = "${events.write-timeout-check-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStartedAt;
+            if (started != 0 && now - started > writeTimeoutNanos) {
+                log.debug("Dropping document event subscriber: write blocked for over {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+                stalledCounter.increment();
+                subscriber.dropped = true;
+                subscribers.remove(subscriber);
+                subscriber.queue.clear();
+                Thread sender = subscriber.sender;
+                if (sender != null) {
+                    sender.interrupt();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    private void enqueue(Subscriber subscriber, Object message) {
+        while (!subscriber.queue.offer(message)) {
+            if (subscriber.queue.poll() != null) {
+                droppedCounter.increment();
+            }
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        subscriber.sender = Thread.currentThread();
+        try {
+            Object message;
+            while (!subscriber.dropped && (message = subscriber.queue.poll()) != null) {
+                subscriber.sendStartedAt = System.nanoTime();
+                if (message == HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    DocumentEventDto event = (DocumentEventDto) message;
+                    subscriber.emitter.send(SseEmitter.event()
+                        .name(event.getType().name().toLowerCase())
+                        .id(event.getDocumentId().toString())
+                        .data(event));
+                }
+                subscriber.sendStartedAt = 0;
+            }
+            if (subscriber.dropped) {
+                // The stalled write went through after all; end the stream anyway
+                subscriber.emitter.complete();
+                return;
+            }
+        } catch (Exception e) {
+            log.debug("Dropping document event subscriber: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.sendStartedAt = 0;
+            subscriber.sender = null;
+            subscriber.draining.set(false);
+        }
+
+        // An event may have arrived after the last poll but before the flag was cleared
+        if (!subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<UUID> departmentIds;
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Start of the write in progress, 0 while not writing
+        private volatile long sendStartedAt;
+        private volatile Thread sender;
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter, Set<UUID> departmentIds, int bufferSize) {
+            this.emitter = emitter;
+            this.departmentIds = departmentIds;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean accepts(DocumentEventDto event) {
+            return departmentIds == null
+                || departmentIds.contains(event.getDepartmentId())
+                || (event.getPreviousDepartmentId() != null && departmentIds.contains(event.getPreviousDepartmentId()));
+        }
+    }
+}
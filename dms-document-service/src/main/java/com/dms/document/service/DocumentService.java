@@ -1,18 +1,24 @@
 package com.dms.document.service;
 
 import com.dms.common.dto.DocumentDto;
-import com.dms.common.dto.UserDto;
+import com.dms.common.dto.DocumentEventDto;
+import com.dms.common.dto.DocumentVersionDto;
+import com.dms.common.dto.PresignedUploadDto;
+import com.dms.common.dto.UploadSessionDto;
 import com.dms.common.exception.ResourceNotFoundException;
-import com.dms.document.client.DepartmentServiceClient;
-import com.dms.document.client.UserServiceClient;
 import com.dms.document.entity.Document;
+import com.dms.document.entity.DocumentVersion;
+import com.dms.document.entity.UploadSession;
 import com.dms.document.repository.DocumentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,15 +27,21 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DocumentService {
     private final DocumentRepository documentRepository;
-    private final S3Service s3Service;
-    private final UserServiceClient userServiceClient;
-    private final DepartmentServiceClient departmentServiceClient;
-    private final TranslationService translationService;
+    private final StorageBackend storageBackend;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final BlobUploadService blobUploadService;
+    private final ResumableUploadService resumableUploadService;
+    private final StorageDeletionService storageDeletionService;
+    private final DocumentEnrichmentService documentEnrichmentService;
+    private final NearDuplicateService nearDuplicateService;
+    private final DocumentVersionService documentVersionService;
+    private final ViewCounterService viewCounterService;
+    private final TextExtractionService textExtractionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     public List<DocumentDto> getAllDocuments() {
-        return documentRepository.findAll().stream()
-            .map(this::mapToDocumentDto)
-            .collect(Collectors.toList());
+        return mapToDocumentDtos(documentRepository.findAll());
     }
 
     public DocumentDto getDocumentById(UUID id) {
@@ -38,47 +50,40 @@ public class DocumentService {
         return mapToDocumentDto(document);
     }
 
+    // The stored document without department and user names, for permission checks
+    public Document getDocumentForAccessCheck(UUID id) {
+        return documentRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Document not found with id: " + id));
+    }
+
     public List<DocumentDto> getDocumentsByUser(UUID userId) {
-        return documentRepository.findByCreatedBy(userId).stream()
-            .map(this::mapToDocumentDto)
-            .collect(Collectors.toList());
+        return mapToDocumentDtos(documentRepository.findByCreatedBy(userId));
     }
 
     public List<DocumentDto> getDocumentsByType(String type) {
-        return documentRepository.findByType(type).stream()
-            .map(this::mapToDocumentDto)
-            .collect(Collectors.toList());
+        return mapToDocumentDtos(documentRepository.findByType(type));
     }
     
     public List<DocumentDto> getDocumentsByCategory(String category) {
-        return documentRepository.findByCategory(category).stream()
-            .map(this::mapToDocumentDto)
-            .collect(Collectors.toList());
+        return mapToDocumentDtos(documentRepository.findByCategory(category));
     }
     
     public List<DocumentDto> getDocumentsByDepartment(UUID departmentId) {
-        return documentRepository.findByDepartmentId(departmentId).stream()
-            .map(this::mapToDocumentDto)
-            .collect(Collectors.toList());
+        return mapToDocumentDtos(documentRepository.findByDepartmentId(departmentId));
     }
     
     public List<DocumentDto> getDocumentsByDepartments(Set<UUID> departmentIds) {
-        return documentRepository.findByDepartmentIdIn(departmentIds).stream()
-            .map(this::mapToDocumentDto)
-            .collect(Collectors.toList());
+        return mapToDocumentDtos(documentRepository.findByDepartmentIdIn(departmentIds));
     }
 
     @Transactional
     public DocumentDto createDocument(DocumentDto documentDto, UUID userId) {
         LocalDateTime now = LocalDateTime.now();
         
-        // Translate the title (for demo purposes, we'll translate to French)
-        String translatedTitle = translationService.translateText(
-            documentDto.getTitle(), "en", "fr");
-        
+        // The title is translated by TitleTranslationWorker once this commits
         Document document = Document.builder()
             .title(documentDto.getTitle())
-            .translatedTitle(translatedTitle)
+            .translationStatus(Document.TranslationStatus.PENDING)
             .description(documentDto.getDescription())
             .content(documentDto.getContent())
             .type(documentDto.getType())
@@ -91,23 +96,30 @@ public class DocumentService {
             .build();
         
         Document savedDocument = documentRepository.save(document);
+        documentVersionService.recordVersion(savedDocument, null);
+        nearDuplicateService.indexDocument(savedDocument.getId(), savedDocument.getContent());
+        publishEvent(DocumentEventDto.Type.CREATED, savedDocument, null);
         return mapToDocumentDto(savedDocument);
     }
 
     @Transactional
     public DocumentDto updateDocument(UUID id, DocumentDto documentDto, UUID userId) {
-        Document document = documentRepository.findById(id)
+        Document document = documentRepository.findByIdForUpdate(id)
             .orElseThrow(() -> new ResourceNotFoundException("Document not found with id: " + id));
         
-        // Translate the title if it has changed
-        String translatedTitle = document.getTranslatedTitle();
+        DocumentVersion previousState = documentVersionService.captureState(document);
+        UUID previousDepartmentId = document.getDepartmentId();
+        boolean contentChanged = !Objects.equals(document.getContent(), documentDto.getContent());
+        
+        // A changed title is translated again by TitleTranslationWorker once this commits
         if (!document.getTitle().equals(documentDto.getTitle())) {
-            translatedTitle = translationService.translateText(
-                documentDto.getTitle(), "en", "fr");
+            document.setTranslatedTitle(null);
+            document.setTranslationStatus(Document.TranslationStatus.PENDING);
+            document.setTranslationAttempts(0);
+            document.setNextTranslationAt(null);
         }
         
         document.setTitle(documentDto.getTitle());
-        document.setTranslatedTitle(translatedTitle);
         document.setDescription(documentDto.getDescription());
         document.setContent(documentDto.getContent());
         document.setType(documentDto.getType());
@@ -117,50 +129,238 @@ public class DocumentService {
         document.setUpdatedBy(userId);
         
         Document updatedDocument = documentRepository.save(document);
+        documentVersionService.recordVersion(updatedDocument, previousState);
+        if (contentChanged) {
+            nearDuplicateService.indexDocument(updatedDocument.getId(), updatedDocument.getContent());
+        }
+        publishEvent(DocumentEventDto.Type.UPDATED, updatedDocument, previousDepartmentId);
         return mapToDocumentDto(updatedDocument);
     }
 
-    @Transactional
+    // Not transactional: the file is hashed and uploaded with no transaction open, so a large
+    // upload holds neither the document's row lock nor a connection while it transfers
     public DocumentDto uploadFile(UUID documentId, MultipartFile file, UUID userId) throws IOException {
-        Document document = documentRepository.findById(documentId)
+        if (!documentRepository.existsById(documentId)) {
+            throw new ResourceNotFoundException("Document not found with id: " + documentId);
+        }
+        
+        // Upload new file, keyed by its content so identical files are stored once
+        String s3Key = contentAddressedStorage.keyFor(file);
+        ContentAddressedStorage.BlobReference blob = new ContentAddressedStorage.BlobReference(
+            s3Key, file, file.getSize(), file.getContentType(), 1);
+        
+        for (int attempt = 1; ; attempt++) {
+            BlobUploadService.Uploads uploads = blobUploadService.upload(List.of(blob), Runnable::run);
+            if (!uploads.failed().isEmpty()) {
+                throw new IOException("Failed to store file " + file.getOriginalFilename());
+            }
+            try {
+                return transactionTemplate.execute(status -> attachUploadedFile(documentId, blob, uploads.uploaded(),
+                    file.getOriginalFilename(), userId));
+            } catch (UncheckedIOException e) {
+                // The deletion worker removed the object before the reference was taken
+                if (!(e.getCause() instanceof ContentAddressedStorage.NotStoredException)
+                        || attempt >= BlobUploadService.MAX_ATTEMPTS) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+    public boolean supportsDirectUpload() {
+        return storageBackend.supportsDirectUpload();
+    }
+
+    public PresignedUploadDto createPresignedUpload(UUID documentId, PresignedUploadDto request) {
+        if (!documentRepository.existsById(documentId)) {
+            throw new ResourceNotFoundException("Document not found with id: " + documentId);
+        }
+        
+        return storageBackend.presignUpload(directUploadPrefix(documentId),
+            request.getFileName(), request.getContentType(), request.getFileSize());
+    }
+
+    // Second step of a direct upload: the client has PUT the object, verify it and attach it
+    @Transactional
+    public DocumentDto completePresignedUpload(UUID documentId, PresignedUploadDto request, UUID userId) {
+        Document document = documentRepository.findByIdForUpdate(documentId)
             .orElseThrow(() -> new ResourceNotFoundException("Document not found with id: " + documentId));
         
-        // Delete old file if exists
-        if (document.getS3Key() != null) {
-            s3Service.deleteFile(document.getS3Key());
+        // Only keys issued for this document can be attached to it
+        if (request.getKey() == null || !request.getKey().startsWith(directUploadPrefix(documentId))) {
+            throw new IllegalArgumentException("Upload key does not belong to document: " + documentId);
         }
         
-        // Upload new file
-        String s3Key = s3Service.uploadFile(file);
+        StoredObject object = storageBackend.headObject(request.getKey())
+            .orElseThrow(() -> new ResourceNotFoundException("Uploaded file not found: " + request.getKey()));
         
-        document.setS3Key(s3Key);
-        document.setFileName(file.getOriginalFilename());
-        document.setFileType(file.getContentType());
-        document.setFileSize(file.getSize());
-        document.setUpdatedAt(LocalDateTime.now());
-        document.setUpdatedBy(userId);
+        DocumentVersion previousState = documentVersionService.captureState(document);
+        return attachFile(document, previousState, request.getKey(), request.getFileName(),
+            object.getContentType(), object.getContentLength(), userId);
+    }
+
+    public UploadSessionDto createResumableUpload(UUID documentId, UploadSessionDto request, UUID userId) {
+        if (!documentRepository.existsById(documentId)) {
+            throw new ResourceNotFoundException("Document not found with id: " + documentId);
+        }
         
-        Document updatedDocument = documentRepository.save(document);
-        return mapToDocumentDto(updatedDocument);
+        String key = directUploadPrefix(documentId) + UUID.randomUUID() + "-" + request.getFileName();
+        return resumableUploadService.createSession(documentId, key, request, userId);
     }
 
+    // Last step of a resumable upload: assemble the parts and attach the file
+    @Transactional
+    public DocumentDto completeResumableUpload(UUID documentId, UUID sessionId, UUID userId) throws IOException {
+        Document document = documentRepository.findByIdForUpdate(documentId)
+            .orElseThrow(() -> new ResourceNotFoundException("Document not found with id: " + documentId));
+        
+        UploadSession session = resumableUploadService.complete(documentId, sessionId);
+        
+        DocumentVersion previousState = documentVersionService.captureState(document);
+        return attachFile(document, previousState, session.getStorageKey(), session.getFileName(),
+            session.getContentType(), session.getFileSize(), userId);
+    }
+
+    @Transactional
     public void deleteDocument(UUID id) {
         Document document = documentRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Document not found with id: " + id));
         
-        // Delete file from S3 if exists
+        // Release current and historical files; those no other document references are
+        // deleted from storage after commit
+        Set<String> s3Keys = new HashSet<>(documentVersionService.getReferencedS3Keys(id));
         if (document.getS3Key() != null) {
-            s3Service.deleteFile(document.getS3Key());
+            s3Keys.add(document.getS3Key());
         }
+        s3Keys.removeIf(s3Key -> !contentAddressedStorage.release(s3Key));
+        storageDeletionService.enqueue(s3Keys);
         
+        documentVersionService.deleteVersions(id);
+        nearDuplicateService.removeDocument(id);
+        textExtractionService.removeDocument(id);
+        viewCounterService.removeDocument(id);
         documentRepository.deleteById(id);
+        publishEvent(DocumentEventDto.Type.DELETED, document, null);
+    }
+
+    public void recordView(DocumentDto document) {
+        document.setViewCount(viewCounterService.recordView(document.getId(), document.getDepartmentId()));
+    }
+
+    // Most viewed documents in the given departments, or across all departments when null
+    public List<DocumentDto> getMostViewedDocuments(Set<UUID> departmentIds, int limit) {
+        Map<UUID, Long> mostViewed = viewCounterService.getMostViewed(departmentIds, limit);
+        Map<UUID, Document> documents = documentRepository.findAllById(mostViewed.keySet()).stream()
+            .collect(Collectors.toMap(Document::getId, document -> document));
+        
+        List<DocumentDto> result = mapToDocumentDtos(mostViewed.keySet().stream()
+            .map(documents::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList()));
+        result.forEach(dto -> dto.setViewCount(mostViewed.get(dto.getId())));
+        return result;
+    }
+
+    public List<DocumentVersionDto> getDocumentVersions(UUID id) {
+        if (!documentRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Document not found with id: " + id);
+        }
+        return documentVersionService.getVersions(id);
+    }
+
+    public DocumentVersionDto getDocumentVersion(UUID id, int versionNumber) {
+        return documentVersionService.getVersion(id, versionNumber);
+    }
+
+    public List<DocumentDto> getNearDuplicates(UUID id) {
+        if (!documentRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Document not found with id: " + id);
+        }
+        
+        List<UUID> duplicateIds = nearDuplicateService.findNearDuplicates(id);
+        Map<UUID, Document> documents = documentRepository.findAllById(duplicateIds).stream()
+            .collect(Collectors.toMap(Document::getId, document -> document));
+        
+        // Keep the similarity ordering from the detector
+        return mapToDocumentDtos(duplicateIds.stream()
+            .map(documents::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList()));
+    }
+
+    private DocumentDto attachUploadedFile(UUID documentId, ContentAddressedStorage.BlobReference blob,
+                                           Set<String> uploaded, String fileName, UUID userId) {
+        Document document = documentRepository.findByIdForUpdate(documentId)
+            .orElseThrow(() -> new ResourceNotFoundException("Document not found with id: " + documentId));
+        
+        // The previous file stays in storage, it is still referenced by the version history
+        DocumentVersion previousState = documentVersionService.captureState(document);
+        
+        // Content already in this document's history holds a reference, don't take another
+        if (!blob.key().equals(document.getS3Key()) && !documentVersionService.referencesS3Key(documentId, blob.key())) {
+            try {
+                contentAddressedStorage.acquireAll(List.of(blob), uploaded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        return attachFile(document, previousState, blob.key(), fileName, blob.contentType(), blob.size(), userId);
+    }
+
+    private DocumentDto attachFile(Document document, DocumentVersion previousState, String s3Key,
+                                   String fileName, String fileType, Long fileSize, UUID userId) {
+        document.setS3Key(s3Key);
+        document.setFileName(fileName);
+        document.setFileType(fileType);
+        document.setFileSize(fileSize);
+        document.setUpdatedAt(LocalDateTime.now());
+        document.setUpdatedBy(userId);
+        
+        Document updatedDocument = documentRepository.save(document);
+        documentVersionService.recordVersion(updatedDocument, previousState);
+        publishEvent(DocumentEventDto.Type.UPDATED, updatedDocument, null);
+        return mapToDocumentDto(updatedDocument);
+    }
+
+    private String directUploadPrefix(UUID documentId) {
+        return "uploads/" + documentId + "/";
+    }
+
+    // Delivered to subscribers only once the surrounding transaction commits
+    private void publishEvent(DocumentEventDto.Type type, Document document, UUID previousDepartmentId) {
+        eventPublisher.publishEvent(DocumentEventDto.builder()
+            .type(type)
+            .documentId(document.getId())
+            .departmentId(document.getDepartmentId())
+            .previousDepartmentId(Objects.equals(previousDepartmentId, document.getDepartmentId()) ? null : previousDepartmentId)
+            .title(document.getTitle())
+            .userId(document.getUpdatedBy())
+            .occurredAt(LocalDateTime.now())
+            .build());
     }
 
     private DocumentDto mapToDocumentDto(Document document) {
+        DocumentDto dto = toDocumentDto(document);
+        documentEnrichmentService.enrich(List.of(dto));
+        return dto;
+    }
+
+    // Enriches the whole list at once, so names shared by many documents are looked up once
+    private List<DocumentDto> mapToDocumentDtos(List<Document> documents) {
+        List<DocumentDto> dtos = documents.stream()
+            .map(this::toDocumentDto)
+            .collect(Collectors.toList());
+        documentEnrichmentService.enrich(dtos);
+        return dtos;
+    }
+
+    private DocumentDto toDocumentDto(Document document) {
         DocumentDto dto = DocumentDto.builder()
             .id(document.getId())
             .title(document.getTitle())
             .translatedTitle(document.getTranslatedTitle())
+            .translationStatus(document.getTranslationStatus() != null ? document.getTranslationStatus().name() : null)
             .description(document.getDescription())
             .content(document.getContent())
             .type(document.getType())
@@ -176,34 +376,10 @@ public class DocumentService {
             .updatedBy(document.getUpdatedBy())
             .build();
         
-        // Add file URL if S3 key exists
+        // Add file URL if S3 key exists, falling back to the download endpoint
         if (document.getS3Key() != null) {
-            dto.setFileUrl(s3Service.getFileUrl(document.getS3Key()));
-        }
-        
-        // Add department name
-        try {
-            var department = departmentServiceClient.getDepartmentById(document.getDepartmentId());
-            dto.setDepartmentName(department.getName());
-        } catch (Exception e) {
-            dto.setDepartmentName("Unknown Department");
-        }
-        
-        // Add user names
-        try {
-            UserDto createdByUser = userServiceClient.getUserById(document.getCreatedBy());
-            dto.setCreatedByName(createdByUser.getName());
-            
-            if (!document.getCreatedBy().equals(document.getUpdatedBy())) {
-                UserDto updatedByUser = userServiceClient.getUserById(document.getUpdatedBy());
-                dto.setUpdatedByName(updatedByUser.getName());
-            } else {
-                dto.setUpdatedByName(createdByUser.getName());
-            }
-        } catch (Exception e) {
-            // Handle case where user service is unavailable
-            dto.setCreatedByName("Unknown");
-            dto.setUpdatedByName("Unknown");
+            String fileUrl = storageBackend.getDownloadUrl(document.getS3Key());
+            dto.setFileUrl(fileUrl != null ? fileUrl : "/api/documents/" + document.getId() + "/download");
         }
         
         return dto;
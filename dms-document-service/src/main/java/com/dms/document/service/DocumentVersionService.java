@@ -0,0 +1,154 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.DocumentVersionDto;
+import com.dms.common.exception.ResourceNotFoundException;
+import com.dms.document.entity.Document;
+import com.dms.document.entity.DocumentVersion;
+import com.dms.document.repository.DocumentVersionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+public class DocumentVersionService {
+
+    private final DocumentVersionRepository versionRepository;
+    private final int snapshotInterval;
+
+    public DocumentVersionService(DocumentVersionRepository versionRepository,
+                                  @Value("${versioning.snapshot-interval:20}") int snapshotInterval) {
+        this.versionRepository = versionRepository;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // Records the current state of the document as a new version. previousState comes from
+    // captureState before the change (null for new documents); for documents that predate
+    // versioning it is written first as their baseline snapshot.
+    @Transactional
+    public void recordVersion(Document document, DocumentVersion previousState) {
+        Optional<DocumentVersion> latest = versionRepository.findTopByDocumentIdOrderByVersionNumberDesc(document.getId());
+        String previousContent = previousState != null ? previousState.getContentData() : null;
+
+        if (latest.isEmpty() && previousState != null) {
+            previousState.setVersionNumber(1);
+            previousState.setSnapshot(true);
+            latest = Optional.of(versionRepository.save(previousState));
+        }
+
+        int versionNumber = latest.map(version -> version.getVersionNumber() + 1).orElse(1);
+        String content = document.getContent();
+
+        // Snapshots bound the number of deltas applied when reconstructing a version
+        boolean snapshot = latest.isEmpty()
+            || content == null
+            || (versionNumber - 1) % snapshotInterval == 0;
+        String contentData = content;
+        if (!snapshot) {
+            String delta = ContentDelta.encode(previousContent, content);
+            if (delta.length() < content.length()) {
+                contentData = delta;
+            } else {
+                snapshot = true;
+            }
+        }
+
+        versionRepository.save(DocumentVersion.builder()
+            .documentId(document.getId())
+            .versionNumber(versionNumber)
+            .title(document.getTitle())
+            .description(document.getDescription())
+            .snapshot(snapshot)
+            .contentData(contentData)
+            .s3Key(document.getS3Key())
+            .fileName(document.getFileName())
+            .fileType(document.getFileType())
+            .fileSize(document.getFileSize())
+            .createdAt(document.getUpdatedAt())
+            .createdBy(document.getUpdatedBy())
+            .build());
+    }
+
+    // Captures the state a document has before it is modified, for use with recordVersion
+    public DocumentVersion captureState(Document document) {
+        return DocumentVersion.builder()
+            .documentId(document.getId())
+            .title(document.getTitle())
+            .description(document.getDescription())
+            .contentData(document.getContent())
+            .s3Key(document.getS3Key())
+            .fileName(document.getFileName())
+            .fileType(document.getFileType())
+            .fileSize(document.getFileSize())
+            .createdAt(document.getUpdatedAt())
+            .createdBy(document.getUpdatedBy())
+            .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<DocumentVersionDto> getVersions(UUID documentId) {
+        return versionRepository.findByDocumentIdOrderByVersionNumberDesc(documentId).stream()
+            .map(version -> mapToVersionDto(version, null))
+            .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public DocumentVersionDto getVersion(UUID documentId, int versionNumber) {
+        DocumentVersion version = versionRepository.findByDocumentIdAndVersionNumber(documentId, versionNumber)
+            .orElseThrow(() -> new ResourceNotFoundException(
+                "Version " + versionNumber + " not found for document with id: " + documentId));
+        return mapToVersionDto(version, reconstructContent(documentId, versionNumber));
+    }
+
+    // Distinct file keys referenced anywhere in the document's history
+    public List<String> getReferencedS3Keys(UUID documentId) {
+        return versionRepository.findDistinctS3KeysByDocumentId(documentId);
+    }
+
+    public boolean referencesS3Key(UUID documentId, String s3Key) {
+        return versionRepository.existsByDocumentIdAndS3Key(documentId, s3Key);
+    }
+
+    @Transactional
+    public void deleteVersions(UUID documentId) {
+        versionRepository.deleteByDocumentId(documentId);
+    }
+
+    private String reconstructContent(UUID documentId, int versionNumber) {
+        DocumentVersion snapshot = versionRepository
+            .findTopByDocumentIdAndSnapshotTrueAndVersionNumberLessThanEqualOrderByVersionNumberDesc(documentId, versionNumber)
+            .orElseThrow(() -> new IllegalStateException("No snapshot found for document with id: " + documentId));
+
+        String content = snapshot.getContentData();
+        if (snapshot.getVersionNumber() == versionNumber) {
+            return content;
+        }
+
+        List<DocumentVersion> deltas = versionRepository.findByDocumentIdAndVersionNumberBetweenOrderByVersionNumberAsc(
+            documentId, snapshot.getVersionNumber() + 1, versionNumber);
+        for (DocumentVersion delta : deltas) {
+            content = delta.isSnapshot() ? delta.getContentData() : ContentDelta.apply(content, delta.getContentData());
+        }
+        return content;
+    }
+
+    private DocumentVersionDto mapToVersionDto(DocumentVersion version, String content) {
+        return DocumentVersionDto.builder()
+            .documentId(version.getDocumentId())
+            .versionNumber(version.getVersionNumber())
+            .title(version.getTitle())
+            .description(version.getDescription())
+            .content(content)
+            .s3Key(version.getS3Key())
+            .fileName(version.getFileName())
+            .fileType(version.getFileType())
+            .fileSize(version.getFileSize())
+            .createdAt(version.getCreatedAt())
+            .createdBy(version.getCreatedBy())
+            .build();
+    }
+}
@@ -0,0 +1,225 @@
+package com.dms.document.service;
+
+import com.dms.document.entity.Document;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+// Serves attached files with single-range (206) and conditional (304) support. The object
+// is streamed from storage to the client in small chunks and is never held in memory as a whole;
+// files on the local disk and remote objects in the disk cache are handed to Tomcat's sendfile
+// when the connector supports it.
+@Service
+@RequiredArgsConstructor
+public class FileDownloadService {
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    private static final String CACHE_LEASE_CALLBACK = FileDownloadService.class.getName() + ".cacheLease";
+
+    private final StorageBackend storageBackend;
+    private final DiskObjectCache diskObjectCache;
+
+    public ResponseEntity<StreamingResponseBody> download(Document document, HttpServletRequest request) {
+        if (document.getS3Key() == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Optional<StoredObject> head = storageBackend.headObject(document.getS3Key());
+        if (head.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        String eTag = head.get().getETag();
+        long length = head.get().getContentLength();
+
+        // Client already has this exact object
+        if (matchesIfNoneMatch(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .build();
+        }
+
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+
+        // If-Range: only honour the range when the client's copy is still current
+        if (rangeHeader != null && (ifRange == null || ifRange.equals(eTag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+
+            // Multiple ranges are answered with the whole object, which the spec permits
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                long rangeStart = range.getRangeStart(length);
+                if (length == 0 || rangeStart >= length) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+                }
+                start = rangeStart;
+                end = range.getRangeEnd(length);
+                partial = true;
+            }
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setCacheControl("private, no-cache");
+        headers.setContentType(mediaType(document.getFileType()));
+        headers.setContentLength(end - start + 1);
+        headers.setContentDisposition(ContentDisposition.inline()
+            .filename(document.getFileName() != null ? document.getFileName() : "file", StandardCharsets.UTF_8)
+            .build());
+        if (partial) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        if (length == 0) {
+            return new ResponseEntity<>(outputStream -> { }, headers, HttpStatus.OK);
+        }
+
+        HttpStatus status = partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK;
+
+        // Zero-copy: Tomcat writes the file region itself once the headers are committed
+        boolean sendfile = Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR));
+        Optional<Path> localFile = storageBackend.getLocalFile(document.getS3Key());
+        if (localFile.isPresent() && sendfile) {
+            sendfile(request, localFile.get(), start, end);
+            return new ResponseEntity<>(headers, status);
+        }
+
+        long rangeStart = start;
+        long rangeEnd = end;
+
+        // Remote objects cached on this disk. The lease keeps an evicted file on disk until the
+        // request completes, and the cache waits its delete delay before removing it after that.
+        // Misses stream from storage below.
+        Optional<DiskObjectCache.Lease> cached = localFile.isEmpty() ? diskObjectCache.acquire(head.get()) : Optional.empty();
+        if (cached.isPresent() && sendfile) {
+            DiskObjectCache.Lease lease = cached.get();
+            RequestContextHolder.currentRequestAttributes()
+                .registerDestructionCallback(CACHE_LEASE_CALLBACK, lease::close, RequestAttributes.SCOPE_REQUEST);
+            sendfile(request, lease.path(), start, end);
+            return new ResponseEntity<>(headers, status);
+        }
+        if (cached.isPresent()) {
+            // Without sendfile the file is copied from a channel opened now, which keeps it readable
+            try (DiskObjectCache.Lease lease = cached.get()) {
+                FileChannel channel = FileChannel.open(lease.path(), StandardOpenOption.READ);
+                StreamingResponseBody body = outputStream -> {
+                    try (channel) {
+                        transfer(channel, rangeStart, rangeEnd, outputStream);
+                    }
+                };
+                return new ResponseEntity<>(body, headers, status);
+            } catch (IOException e) {
+                // Unreadable, fall back to storage
+            }
+        }
+
+        StreamingResponseBody body = outputStream ->
+            storageBackend.writeRange(document.getS3Key(), rangeStart, rangeEnd, eTag, outputStream);
+
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+    // Generated images such as previews: whole object only, revalidated with the ETag
+    public ResponseEntity<StreamingResponseBody> downloadRendition(StoredObject object, HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofHours(1)).cachePrivate();
+        
+        if (matchesIfNoneMatch(ifNoneMatch, object.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(object.getETag())
+                .cacheControl(cacheControl)
+                .build();
+        }
+
+        long length = object.getContentLength();
+        StreamingResponseBody body = outputStream ->
+            storageBackend.writeRange(object.getKey(), 0, length - 1, object.getETag(), outputStream);
+        
+        return ResponseEntity.ok()
+            .eTag(object.getETag())
+            .cacheControl(cacheControl)
+            .contentType(MediaType.IMAGE_JPEG)
+            .contentLength(length)
+            .body(body);
+    }
+
+    // If-None-Match uses the weak comparison: entity tags match whether or not either is W/
+    private static boolean matchesIfNoneMatch(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        ETag current = ETag.create(eTag);
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void sendfile(HttpServletRequest request, Path file, long start, long end) {
+        request.setAttribute(SENDFILE_FILENAME_ATTR, file.toString());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        request.setAttribute(SENDFILE_END_ATTR, end + 1);
+    }
+
+    private static void transfer(FileChannel channel, long start, long end, OutputStream outputStream) throws IOException {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        long position = start;
+        long remaining = end - start + 1;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    private MediaType mediaType(String fileType) {
+        try {
+            return fileType != null ? MediaType.parseMediaType(fileType) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (Exception e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
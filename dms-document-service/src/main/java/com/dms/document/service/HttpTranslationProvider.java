@@ -0,0 +1,82 @@
+package com.dms.document.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Calls a bulk translation API: {texts, source, target} in, {translatedTexts} out
+@Service
+@ConditionalOnProperty(name = "translation.provider", havingValue = "http")
+public class HttpTranslationProvider implements TranslationProvider {
+
+    // Bad request, payload too large, unprocessable
+    private static final Set<Integer> REJECTED_STATUSES = Set.of(400, 413, 422);
+
+    private final RestTemplate restTemplate;
+    private final String translationApiUrl;
+    private final String apiKey;
+
+    public HttpTranslationProvider(@Value("${translation.api.url:https://api.example-translation.com/translate}") String translationApiUrl,
+                                   @Value("${translation.api.key:dummy-key}") String apiKey,
+                                   @Value("${translation.api.connect-timeout:PT2S}") Duration connectTimeout,
+                                   @Value("${translation.api.read-timeout:PT30S}") Duration readTimeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.translationApiUrl = translationApiUrl;
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> translate(List<String> texts, String sourceLanguage, String targetLanguage) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("texts", texts);
+        request.put("source", sourceLanguage);
+        request.put("target", targetLanguage);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + apiKey);
+
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
+
+        ResponseEntity<Map> response;
+        try {
+            response = restTemplate.exchange(
+                translationApiUrl,
+                HttpMethod.POST,
+                entity,
+                Map.class
+            );
+        } catch (HttpClientErrorException e) {
+            // Auth, throttling and timeouts are the provider's state, not a verdict on the texts
+            if (REJECTED_STATUSES.contains(e.getStatusCode().value())) {
+                throw new RejectedException("Translation API rejected the texts: " + e.getStatusCode(), e);
+            }
+            throw e;
+        }
+
+        List<String> translated = response.getBody() != null
+            ? (List<String>) response.getBody().get("translatedTexts")
+            : null;
+        if (translated == null || translated.size() != texts.size()) {
+            throw new IllegalStateException("Translation API returned " + (translated == null ? 0 : translated.size())
+                + " translations for " + texts.size() + " texts");
+        }
+        return translated;
+    }
+}
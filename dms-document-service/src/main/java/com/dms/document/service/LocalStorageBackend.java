@@ -0,0 +1,221 @@
+package com.dms.document.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Keeps attached files on the local filesystem, for on-prem/edge sites and benchmarks without S3.
+// Writes go through FileChannel and reads use FileChannel.transferTo, so the kernel moves the bytes.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public LocalStorageBackend(@Value("${storage.local.root:./data/documents}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public void putObject(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        Path target = resolve(key);
+        Path temp = Files.createTempFile(root, ".upload-", ".tmp");
+
+        try {
+            writeFully(inputStream, temp, contentLength);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        // Readers only ever see complete files
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Parts are kept as separate files next to the objects and joined on completion
+    @Override
+    public String createMultipartUpload(String key, String contentType) {
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(partsDirectory(uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return uploadId;
+    }
+
+    @Override
+    public void uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long contentLength) throws IOException {
+        Path partsDirectory = partsDirectory(uploadId);
+        if (!Files.isDirectory(partsDirectory)) {
+            throw new IOException("No such multipart upload: " + uploadId);
+        }
+        Path temp = Files.createTempFile(partsDirectory, ".part-", ".tmp");
+        try {
+            writeFully(inputStream, temp, contentLength);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, partsDirectory.resolve(String.format("%05d", partNumber)),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId) throws IOException {
+        Path partsDirectory = partsDirectory(uploadId);
+        List<Path> parts;
+        try (Stream<Path> files = Files.list(partsDirectory)) {
+            parts = files.filter(path -> !path.getFileName().toString().startsWith(".")).sorted().toList();
+        }
+
+        Path target = resolve(key);
+        Path temp = Files.createTempFile(root, ".upload-", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            for (Path part : parts) {
+                try (FileChannel source = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = source.size();
+                    while (position < size) {
+                        position += source.transferTo(position, size - position, channel);
+                    }
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        FileSystemUtils.deleteRecursively(partsDirectory);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        try {
+            FileSystemUtils.deleteRecursively(partsDirectory(uploadId));
+        } catch (IOException e) {
+            log.warn("Failed to remove multipart upload {}: {}", uploadId, e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> headObject(String key) {
+        Path path = resolve(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return Optional.of(StoredObject.builder()
+                .key(key)
+                .contentLength(attributes.size())
+                .contentType(Files.probeContentType(path))
+                .eTag(eTag(attributes))
+                .lastModified(attributes.lastModifiedTime().toInstant())
+                .build());
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public InputStream getObject(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void writeRange(String key, long start, long end, String eTag, OutputStream outputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            if (eTag != null && !eTag.equals(eTag(Files.readAttributes(resolve(key), BasicFileAttributes.class)))) {
+                throw new IOException("Stored file changed while being read: " + key);
+            }
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    // Fails with UncheckedIOException, so deleteFiles reports the key and the outbox retries it
+    @Override
+    public void deleteFile(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete stored file " + key, e);
+        }
+    }
+
+    @Override
+    public String getFileUrl(String key) {
+        return null;
+    }
+
+    @Override
+    public Optional<Path> getLocalFile(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private static void writeFully(InputStream inputStream, Path file, long contentLength) throws IOException {
+        try (ReadableByteChannel source = Channels.newChannel(inputStream);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            long position = 0;
+            while (position < contentLength) {
+                long transferred = channel.transferFrom(source, position, Math.min(1 << 20, contentLength - position));
+                if (transferred <= 0) {
+                    throw new IOException("Upload ended after " + position + " of " + contentLength + " bytes");
+                }
+                position += transferred;
+            }
+            channel.force(false);
+        }
+    }
+
+    private Path partsDirectory(String uploadId) {
+        // Only ids issued by createMultipartUpload are accepted, so they cannot escape the root
+        return root.resolve(".multipart").resolve(UUID.fromString(uploadId).toString());
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    private static String eTag(BasicFileAttributes attributes) {
+        return "\"" + Long.toHexString(attributes.size()) + "-"
+            + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+    }
+}
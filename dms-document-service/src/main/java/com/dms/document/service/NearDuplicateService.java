@@ -0,0 +1,203 @@
+package com.dms.document.service;
+
+import com.dms.document.entity.DocumentLshBucket;
+import com.dms.document.entity.DocumentSignature;
+import com.dms.document.repository.DocumentLshBucketRepository;
+import com.dms.document.repository.DocumentSignatureRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class NearDuplicateService {
+
+    private final DocumentSignatureRepository signatureRepository;
+    private final DocumentLshBucketRepository bucketRepository;
+    private final int bands;
+    private final int rowsPerBand;
+    private final int shingleSize;
+    private final double similarityThreshold;
+    private final long[] seeds;
+
+    public NearDuplicateService(DocumentSignatureRepository signatureRepository,
+                                DocumentLshBucketRepository bucketRepository,
+                                @Value("${duplicates.minhash.bands:32}") int bands,
+                                @Value("${duplicates.minhash.rows-per-band:4}") int rowsPerBand,
+                                @Value("${duplicates.minhash.shingle-size:3}") int shingleSize,
+                                @Value("${duplicates.similarity-threshold:0.8}") double similarityThreshold) {
+        this.signatureRepository = signatureRepository;
+        this.bucketRepository = bucketRepository;
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.shingleSize = shingleSize;
+        this.similarityThreshold = similarityThreshold;
+
+        // Fixed seeds so signatures stay comparable across restarts and nodes
+        this.seeds = new long[bands * rowsPerBand];
+        long state = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < seeds.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            seeds[i] = mix(state);
+        }
+    }
+
+    @Transactional
+    public void indexDocument(UUID documentId, String content) {
+        bucketRepository.deleteByDocumentId(documentId);
+
+        int[] signature = computeSignature(content);
+        if (signature == null) {
+            signatureRepository.deleteById(documentId);
+            return;
+        }
+
+        signatureRepository.save(DocumentSignature.builder()
+            .documentId(documentId)
+            .signature(pack(signature))
+            .updatedAt(LocalDateTime.now())
+            .build());
+
+        List<DocumentLshBucket> buckets = new ArrayList<>(bands);
+        for (long bucketKey : bucketKeys(signature)) {
+            buckets.add(DocumentLshBucket.builder()
+                .documentId(documentId)
+                .bucketKey(bucketKey)
+                .build());
+        }
+        bucketRepository.saveAll(buckets);
+    }
+
+    @Transactional
+    public void removeDocument(UUID documentId) {
+        bucketRepository.deleteByDocumentId(documentId);
+        signatureRepository.deleteById(documentId);
+    }
+
+    // Ids of documents whose estimated Jaccard similarity is above the threshold, most similar first
+    @Transactional(readOnly = true)
+    public List<UUID> findNearDuplicates(UUID documentId) {
+        Optional<DocumentSignature> source = signatureRepository.findById(documentId);
+        if (source.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int[] signature = unpack(source.get().getSignature());
+        List<Long> keys = new ArrayList<>(bands);
+        for (long bucketKey : bucketKeys(signature)) {
+            keys.add(bucketKey);
+        }
+
+        // Only documents sharing at least one band bucket are compared
+        List<UUID> candidateIds = bucketRepository.findCandidateDocumentIds(keys, documentId);
+        if (candidateIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<UUID, Double> similarities = new HashMap<>();
+        for (DocumentSignature candidate : signatureRepository.findAllById(candidateIds)) {
+            int[] other = unpack(candidate.getSignature());
+            if (other.length != signature.length) {
+                continue;
+            }
+            double similarity = estimateSimilarity(signature, other);
+            if (similarity >= similarityThreshold) {
+                similarities.put(candidate.getDocumentId(), similarity);
+            }
+        }
+
+        List<UUID> result = new ArrayList<>(similarities.keySet());
+        result.sort(Comparator.comparing(similarities::get, Comparator.reverseOrder()));
+        return result;
+    }
+
+    private int[] computeSignature(String content) {
+        if (content == null || content.isBlank()) {
+            return null;
+        }
+
+        String[] tokens = content.toLowerCase(Locale.ROOT).split("\\W+");
+        List<String> words = new ArrayList<>(tokens.length);
+        for (String token : tokens) {
+            if (!token.isEmpty()) {
+                words.add(token);
+            }
+        }
+        if (words.isEmpty()) {
+            return null;
+        }
+
+        long[] minimums = new long[seeds.length];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+
+        int shingleCount = Math.max(1, words.size() - shingleSize + 1);
+        for (int start = 0; start < shingleCount; start++) {
+            long shingleHash = 0xCBF29CE484222325L;
+            int end = Math.min(words.size(), start + shingleSize);
+            for (int i = start; i < end; i++) {
+                for (byte b : words.get(i).getBytes(StandardCharsets.UTF_8)) {
+                    shingleHash = (shingleHash ^ b) * 0x100000001B3L;
+                }
+                shingleHash = (shingleHash ^ ' ') * 0x100000001B3L;
+            }
+
+            for (int i = 0; i < seeds.length; i++) {
+                long value = mix(shingleHash ^ seeds[i]) >>> 32;
+                if (value < minimums[i]) {
+                    minimums[i] = value;
+                }
+            }
+        }
+
+        int[] signature = new int[seeds.length];
+        for (int i = 0; i < seeds.length; i++) {
+            signature[i] = (int) minimums[i];
+        }
+        return signature;
+    }
+
+    private long[] bucketKeys(int[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long hash = mix(band + 1L);
+            for (int row = 0; row < rowsPerBand; row++) {
+                hash = mix(hash ^ (signature[band * rowsPerBand + row] & 0xFFFFFFFFL));
+            }
+            keys[band] = hash;
+        }
+        return keys;
+    }
+
+    private static double estimateSimilarity(int[] a, int[] b) {
+        int matches = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                matches++;
+            }
+        }
+        return (double) matches / a.length;
+    }
+
+    private static byte[] pack(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    private static int[] unpack(byte[] bytes) {
+        int[] signature = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
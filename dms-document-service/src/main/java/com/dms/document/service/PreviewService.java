@@ -0,0 +1,259 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.DocumentEventDto;
+import com.dms.document.repository.DocumentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+// Renders a thumbnail and a first-page preview for image and PDF attachments on a bounded
+// worker pool once the upload has committed, so uploads never wait for rendering. Renditions
+// are stored next to the original as <key>.thumbnail.jpg and <key>.preview.jpg; content-addressed
+// originals therefore share their renditions across documents.
+@Slf4j
+@Service
+public class PreviewService {
+
+    public enum Rendition {
+        THUMBNAIL(".thumbnail.jpg"),
+        PREVIEW(".preview.jpg");
+
+        private final String suffix;
+
+        Rendition(String suffix) {
+            this.suffix = suffix;
+        }
+
+        public String keyFor(String sourceKey) {
+            return sourceKey + suffix;
+        }
+    }
+
+    private static final String PDF_TYPE = "application/pdf";
+
+    private final DocumentRepository documentRepository;
+    private final StorageBackend storageBackend;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final int thumbnailWidth;
+    private final int previewWidth;
+    private final long maxSourceBytes;
+
+    private final Counter generatedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    public PreviewService(DocumentRepository documentRepository,
+                          StorageBackend storageBackend,
+                          MeterRegistry meterRegistry,
+                          @Value("${preview.worker-threads:2}") int workerThreads,
+                          @Value("${preview.queue-capacity:500}") int queueCapacity,
+                          @Value("${preview.thumbnail-width:256}") int thumbnailWidth,
+                          @Value("${preview.preview-width:1024}") int previewWidth,
+                          @Value("${preview.max-source-bytes:104857600}") long maxSourceBytes) {
+        this.documentRepository = documentRepository;
+        this.storageBackend = storageBackend;
+        this.executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "preview-worker");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        this.thumbnailWidth = thumbnailWidth;
+        this.previewWidth = previewWidth;
+        this.maxSourceBytes = maxSourceBytes;
+
+        this.generatedCounter = meterRegistry.counter("dms.previews.generated");
+        this.failedCounter = meterRegistry.counter("dms.previews.failed");
+        this.rejectedCounter = meterRegistry.counter("dms.previews.rejected");
+        meterRegistry.gaugeCollectionSize("dms.previews.queued", Tags.empty(), executor.getQueue());
+    }
+
+    public static boolean isSupported(String fileType) {
+        return fileType != null && (fileType.startsWith("image/") || fileType.equals(PDF_TYPE));
+    }
+
+    // Renditions that can be derived from sourceKey, for cleanup when the original goes away
+    public static List<String> renditionKeys(String sourceKey) {
+        return List.of(Rendition.THUMBNAIL.keyFor(sourceKey), Rendition.PREVIEW.keyFor(sourceKey));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentEvent(DocumentEventDto event) {
+        if (event.getType() != DocumentEventDto.Type.DELETED) {
+            documentRepository.findById(event.getDocumentId())
+                .ifPresent(document -> schedule(document.getS3Key(), document.getFileType()));
+        }
+    }
+
+    // Queues rendering unless it is already queued or the pool is saturated; a skipped source
+    // is picked up again the next time its rendition is requested
+    public void schedule(String sourceKey, String fileType) {
+        if (sourceKey == null || !isSupported(fileType) || !inFlight.add(sourceKey)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(sourceKey, fileType);
+                } finally {
+                    inFlight.remove(sourceKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(sourceKey);
+            rejectedCounter.increment();
+        }
+    }
+
+    public Optional<StoredObject> findRendition(String sourceKey, String fileType, Rendition rendition) {
+        if (sourceKey == null || !isSupported(fileType)) {
+            return Optional.empty();
+        }
+        Optional<StoredObject> stored = storageBackend.headObject(rendition.keyFor(sourceKey));
+        if (stored.isEmpty()) {
+            schedule(sourceKey, fileType);
+        }
+        return stored;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generate(String sourceKey, String fileType) {
+        // A metadata-only update or a second document with the same content needs no new renditions
+        if (storageBackend.headObject(Rendition.THUMBNAIL.keyFor(sourceKey)).isPresent()) {
+            return;
+        }
+
+        Optional<StoredObject> source = storageBackend.headObject(sourceKey);
+        if (source.isEmpty() || source.get().getContentLength() == 0
+                || source.get().getContentLength() > maxSourceBytes) {
+            return;
+        }
+
+        Path temp = null;
+        try {
+            Path file = storageBackend.getLocalFile(sourceKey).orElse(null);
+            if (file == null) {
+                temp = Files.createTempFile("dms-preview-", ".src");
+                try (OutputStream outputStream = Files.newOutputStream(temp)) {
+                    storageBackend.writeRange(sourceKey, 0, source.get().getContentLength() - 1,
+                        source.get().getETag(), outputStream);
+                }
+                file = temp;
+            }
+
+            BufferedImage image = fileType.equals(PDF_TYPE) ? renderFirstPage(file) : readImage(file);
+            if (image == null) {
+                return;
+            }
+
+            // Preview first, so an existing thumbnail always means both are in place
+            store(Rendition.PREVIEW.keyFor(sourceKey), scale(image, previewWidth));
+            store(Rendition.THUMBNAIL.keyFor(sourceKey), scale(image, thumbnailWidth));
+            generatedCounter.increment();
+        } catch (Exception e) {
+            log.warn("Failed to render previews for {}: {}", sourceKey, e.getMessage());
+            failedCounter.increment();
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.debug("Failed to delete {}: {}", temp, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Renders at the resolution the preview needs rather than at print quality
+    private BufferedImage renderFirstPage(Path file) throws IOException {
+        try (PDDocument pdf = Loader.loadPDF(file.toFile())) {
+            if (pdf.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDPage page = pdf.getPage(0);
+            float widthInches = page.getCropBox().getWidth() / 72f;
+            float dpi = widthInches > 0 ? Math.min(300f, previewWidth / widthInches) : 72f;
+            return new PDFRenderer(pdf).renderImageWithDPI(0, dpi, ImageType.RGB);
+        }
+    }
+
+    // Subsamples while decoding, so a huge photo is never fully expanded in memory
+    private BufferedImage readImage(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int subsampling = Math.max(1, reader.getWidth(0) / (previewWidth * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int maxWidth) {
+        int width = Math.min(maxWidth, image.getWidth());
+        int height = Math.max(1, Math.round(image.getHeight() * (width / (float) image.getWidth())));
+
+        // JPEG has no alpha, so transparent areas are flattened onto white
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private void store(String key, BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", bytes);
+        storageBackend.putObject(key, new ByteArrayInputStream(bytes.toByteArray()), bytes.size(), "image/jpeg");
+    }
+}
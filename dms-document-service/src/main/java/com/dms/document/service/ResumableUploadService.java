@@ -0,0 +1,156 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.UploadSessionDto;
+import com.dms.common.exception.ResourceNotFoundException;
+import com.dms.document.entity.UploadSession;
+import com.dms.document.repository.UploadSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+// Resumable uploads in the style of tus: create a session, send fixed-size chunks at the
+// offset the server reports, then finalize. Each chunk is streamed straight into one part of
+// a multipart upload in storage and the session lives in the database, so an interrupted
+// upload resumes from its last chunk, even across restarts.
+@Slf4j
+@Service
+public class ResumableUploadService {
+
+    private final UploadSessionRepository sessionRepository;
+    private final StorageBackend storageBackend;
+    private final long chunkSize;
+    private final Duration sessionTtl;
+
+    public ResumableUploadService(UploadSessionRepository sessionRepository,
+                                  StorageBackend storageBackend,
+                                  @Value("${upload.resumable.chunk-size:8388608}") long chunkSize,
+                                  @Value("${upload.resumable.session-ttl:P1D}") Duration sessionTtl) {
+        this.sessionRepository = sessionRepository;
+        this.storageBackend = storageBackend;
+        this.chunkSize = Math.max(chunkSize, StorageBackend.MIN_PART_SIZE);
+        this.sessionTtl = sessionTtl;
+    }
+
+    public UploadSessionDto createSession(UUID documentId, String key, UploadSessionDto request, UUID userId) {
+        if (request.getFileSize() == null || request.getFileSize() <= 0) {
+            throw new IllegalArgumentException("fileSize is required for a resumable upload");
+        }
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new IllegalArgumentException("fileName is required for a resumable upload");
+        }
+
+        // Large files get larger chunks so they stay within the part limit
+        long sessionChunkSize = Math.max(chunkSize,
+            (request.getFileSize() + StorageBackend.MAX_PARTS - 1) / StorageBackend.MAX_PARTS);
+
+        String uploadId = storageBackend.createMultipartUpload(key, request.getContentType());
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = UploadSession.builder()
+            .documentId(documentId)
+            .storageKey(key)
+            .uploadId(uploadId)
+            .fileName(request.getFileName())
+            .contentType(request.getContentType())
+            .fileSize(request.getFileSize())
+            .chunkSize(sessionChunkSize)
+            .offset(0)
+            .partCount(0)
+            .createdBy(userId)
+            .createdAt(now)
+            .expiresAt(now.plus(sessionTtl))
+            .build();
+
+        return mapToUploadSessionDto(sessionRepository.save(session));
+    }
+
+    public UploadSessionDto getSession(UUID documentId, UUID sessionId) {
+        return mapToUploadSessionDto(findSession(documentId, sessionId));
+    }
+
+    // Appends the chunk starting at offset. A stale offset, e.g. from a retry of a chunk that
+    // did arrive, fails with IllegalStateException so the client can ask for the current offset.
+    public UploadSessionDto appendChunk(UUID documentId, UUID sessionId, long offset,
+                                        InputStream inputStream, long contentLength) throws IOException {
+        UploadSession session = findSession(documentId, sessionId);
+        if (offset != session.getOffset()) {
+            throw new IllegalStateException("Upload is at offset " + session.getOffset() + ", not " + offset);
+        }
+
+        long expectedLength = Math.min(session.getChunkSize(), session.getFileSize() - offset);
+        if (contentLength != expectedLength) {
+            throw new IllegalArgumentException("Chunk at offset " + offset + " must be " + expectedLength + " bytes");
+        }
+
+        int partNumber = (int) (offset / session.getChunkSize()) + 1;
+        storageBackend.uploadPart(session.getStorageKey(), session.getUploadId(), partNumber, inputStream, contentLength);
+
+        long newOffset = offset + contentLength;
+        if (sessionRepository.advanceOffset(sessionId, offset, newOffset, LocalDateTime.now().plus(sessionTtl)) == 0) {
+            // A concurrent request sent the same chunk; the part it wrote is identical
+            throw new IllegalStateException("Upload offset changed concurrently");
+        }
+
+        session.setOffset(newOffset);
+        return mapToUploadSessionDto(session);
+    }
+
+    // Assembles the object once every byte has arrived and ends the session
+    public UploadSession complete(UUID documentId, UUID sessionId) throws IOException {
+        UploadSession session = findSession(documentId, sessionId);
+        if (session.getOffset() != session.getFileSize()) {
+            throw new IllegalStateException("Upload incomplete: " + session.getOffset() + " of "
+                + session.getFileSize() + " bytes received");
+        }
+
+        storageBackend.completeMultipartUpload(session.getStorageKey(), session.getUploadId());
+        sessionRepository.delete(session);
+        return session;
+    }
+
+    public void abort(UUID documentId, UUID sessionId) {
+        UploadSession session = findSession(documentId, sessionId);
+        storageBackend.abortMultipartUpload(session.getStorageKey(), session.getUploadId());
+        sessionRepository.delete(session);
+    }
+
+    // Abandoned uploads would otherwise keep their parts in storage indefinitely
+    @Scheduled(fixedDelayString = "${upload.resumable.cleanup-interval-ms:600000}")
+    public void expireSessions() {
+        for (UploadSession session : sessionRepository.findByExpiresAtBefore(LocalDateTime.now())) {
+            try {
+                storageBackend.abortMultipartUpload(session.getStorageKey(), session.getUploadId());
+                sessionRepository.delete(session);
+            } catch (Exception e) {
+                log.warn("Failed to expire upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private UploadSession findSession(UUID documentId, UUID sessionId) {
+        return sessionRepository.findById(sessionId)
+            .filter(session -> session.getDocumentId().equals(documentId))
+            .filter(session -> session.getExpiresAt().isAfter(LocalDateTime.now()))
+            .orElseThrow(() -> new ResourceNotFoundException("Upload session not found with id: " + sessionId));
+    }
+
+    private UploadSessionDto mapToUploadSessionDto(UploadSession session) {
+        return UploadSessionDto.builder()
+            .id(session.getId())
+            .documentId(session.getDocumentId())
+            .fileName(session.getFileName())
+            .contentType(session.getContentType())
+            .fileSize(session.getFileSize())
+            .offset(session.getOffset())
+            .chunkSize(session.getChunkSize())
+            .expiresAt(session.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant())
+            .build();
+    }
+}
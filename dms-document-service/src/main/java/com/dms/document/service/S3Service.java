@@ -1,42 +1,291 @@
 package com.dms.document.service;
 
+import com.dms.common.dto.PresignedUploadDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetUrlRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.UploadRequest;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
-public class S3Service {
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3Service implements StorageBackend {
+
+    private static final int MAX_KEYS_PER_DELETE = 1000;
 
     private final S3Client s3Client;
+    private final S3TransferManager transferManager;
+    private final S3Presigner s3Presigner;
+    private final ExecutorService uploadStreamExecutor;
     private final String bucketName;
+    private final Duration presignedUploadTtl;
+    private final Duration presignedDownloadTtl;
+
+    // Signing is pure CPU but adds up on large lists, so each URL is reused until shortly before it expires
+    private final Cache<String, String> downloadUrlCache;
 
-    public S3Service(S3Client s3Client, @Value("${aws.s3.bucketName}") String bucketName) {
+    public S3Service(S3Client s3Client,
+                     S3TransferManager transferManager,
+                     S3Presigner s3Presigner,
+                     @Value("${aws.s3.bucketName}") String bucketName,
+                     @Value("${aws.s3.presigned-upload-ttl:PT15M}") Duration presignedUploadTtl,
+                     @Value("${aws.s3.presigned-download.ttl:PT1H}") Duration presignedDownloadTtl,
+                     @Value("${aws.s3.presigned-download.refresh-margin:PT5M}") Duration refreshMargin,
+                     @Value("${aws.s3.presigned-download.cache-size:100000}") long cacheSize,
+                     @Value("${aws.s3.upload.stream-threads:8}") int streamThreads,
+                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.s3Client = s3Client;
+        this.transferManager = transferManager;
+        this.s3Presigner = s3Presigner;
+        // Reads upload input streams, which block, off the SDK's event loop threads. Kept private
+        // to this service rather than exposed as a second Executor bean
+        this.uploadStreamExecutor = virtualThreads
+            ? Executors.newFixedThreadPool(streamThreads, Thread.ofVirtual().name("s3-upload-stream").factory())
+            : Executors.newFixedThreadPool(streamThreads, runnable -> {
+                Thread thread = new Thread(runnable, "s3-upload-stream");
+                thread.setDaemon(true);
+                return thread;
+            });
         this.bucketName = bucketName;
+        this.presignedUploadTtl = presignedUploadTtl;
+        this.presignedDownloadTtl = presignedDownloadTtl;
+        this.downloadUrlCache = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(presignedDownloadTtl.minus(refreshMargin))
+            .build();
     }
 
-    public String uploadFile(MultipartFile file) throws IOException {
-        String key = generateUniqueKey(file.getOriginalFilename());
-        
+    @PreDestroy
+    public void shutdown() {
+        uploadStreamExecutor.shutdown();
+    }
+
+    @Override
+    public void putObject(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
             .bucket(bucketName)
             .key(key)
-            .contentType(file.getContentType())
+            .contentType(contentType)
+            .build();
+        
+        // Large objects go up as concurrent multipart parts, read from the stream as they are sent
+        UploadRequest uploadRequest = UploadRequest.builder()
+            .putObjectRequest(putObjectRequest)
+            .requestBody(AsyncRequestBody.fromInputStream(inputStream, contentLength, uploadStreamExecutor))
+            .build();
+        
+        try {
+            transferManager.upload(uploadRequest).completionFuture().join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to upload file to S3: " + key, e.getCause());
+        }
+    }
+
+    @Override
+    public String createMultipartUpload(String key, String contentType) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .contentType(contentType)
+            .build();
+        
+        return s3Client.createMultipartUpload(request).uploadId();
+    }
+
+    // The part is streamed to S3 as it is read; nothing is buffered beyond the SDK's retry window
+    @Override
+    public void uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long contentLength) throws IOException {
+        UploadPartRequest request = UploadPartRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .uploadId(uploadId)
+            .partNumber(partNumber)
+            .contentLength(contentLength)
+            .build();
+        
+        try {
+            s3Client.uploadPart(request, RequestBody.fromInputStream(inputStream, contentLength));
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload part " + partNumber + " of " + key, e);
+        }
+    }
+
+    // Part ETags come from S3 itself, so no per-part state has to be kept by the caller
+    @Override
+    public void completeMultipartUpload(String key, String uploadId) throws IOException {
+        ListPartsRequest listPartsRequest = ListPartsRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .uploadId(uploadId)
             .build();
         
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+        List<CompletedPart> parts = s3Client.listPartsPaginator(listPartsRequest).parts().stream()
+            .map(part -> CompletedPart.builder()
+                .partNumber(part.partNumber())
+                .eTag(part.eTag())
+                .build())
+            .toList();
         
-        return key;
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .uploadId(uploadId)
+            .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+            .build();
+        
+        try {
+            s3Client.completeMultipartUpload(request);
+        } catch (SdkException e) {
+            throw new IOException("Failed to complete multipart upload of " + key, e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .uploadId(uploadId)
+            .build();
+        
+        try {
+            s3Client.abortMultipartUpload(request);
+        } catch (NoSuchUploadException e) {
+            // Already completed or aborted
+        }
+    }
+
+    @Override
+    public boolean supportsDirectUpload() {
+        return true;
     }
 
+    // Presigned PUT for a fresh key under keyPrefix, so the client uploads straight to S3
+    @Override
+    public PresignedUploadDto presignUpload(String keyPrefix, String fileName, String contentType, Long fileSize) {
+        String key = keyPrefix + generateUniqueKey(fileName);
+        
+        PutObjectRequest.Builder putObjectRequest = PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .contentType(contentType);
+        if (fileSize != null) {
+            putObjectRequest.contentLength(fileSize);
+        }
+        
+        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+            .signatureDuration(presignedUploadTtl)
+            .putObjectRequest(putObjectRequest.build())
+            .build();
+        
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(presignRequest);
+        return PresignedUploadDto.builder()
+            .fileName(fileName)
+            .contentType(contentType)
+            .fileSize(fileSize)
+            .key(key)
+            .uploadUrl(presigned.url().toString())
+            .expiresAt(presigned.expiration())
+            .build();
+    }
+
+    @Override
+    public Optional<StoredObject> headObject(String key) {
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        
+        try {
+            HeadObjectResponse response = s3Client.headObject(headObjectRequest);
+            return Optional.of(StoredObject.builder()
+                .key(key)
+                .contentLength(response.contentLength())
+                .contentType(response.contentType())
+                .eTag(response.eTag())
+                .lastModified(response.lastModified())
+                .build());
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream getObject(String key) throws IOException {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        
+        try {
+            return s3Client.getObject(getObjectRequest);
+        } catch (NoSuchKeyException e) {
+            throw new FileNotFoundException("Stored file not found: " + key);
+        }
+    }
+
+    // Streams the range from S3; ifMatch guards against the object changing since the HEAD
+    @Override
+    public void writeRange(String key, long start, long end, String eTag, OutputStream outputStream) throws IOException {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .range("bytes=" + start + "-" + end)
+            .ifMatch(eTag)
+            .build();
+        
+        try (InputStream inputStream = s3Client.getObject(getObjectRequest)) {
+            inputStream.transferTo(outputStream);
+        }
+    }
+
+    @Override
     public void deleteFile(String key) {
         DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
             .bucket(bucketName)
@@ -44,8 +293,37 @@ public class S3Service {
             .build();
         
         s3Client.deleteObject(deleteObjectRequest);
+        downloadUrlCache.invalidate(key);
     }
 
+    // One DeleteObjects call per 1000 keys instead of a round-trip per object
+    @Override
+    public Set<String> deleteFiles(Collection<String> keys) {
+        List<String> keyList = new ArrayList<>(keys);
+        Set<String> failed = new HashSet<>();
+        
+        for (int from = 0; from < keyList.size(); from += MAX_KEYS_PER_DELETE) {
+            List<String> chunk = keyList.subList(from, Math.min(from + MAX_KEYS_PER_DELETE, keyList.size()));
+            DeleteObjectsRequest deleteObjectsRequest = DeleteObjectsRequest.builder()
+                .bucket(bucketName)
+                .delete(Delete.builder()
+                    .objects(chunk.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                    .quiet(true)
+                    .build())
+                .build();
+            
+            downloadUrlCache.invalidateAll(chunk);
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(deleteObjectsRequest);
+                response.errors().forEach(error -> failed.add(error.key()));
+            } catch (SdkException e) {
+                failed.addAll(chunk);
+            }
+        }
+        return failed;
+    }
+
+    @Override
     public String getFileUrl(String key) {
         GetUrlRequest getUrlRequest = GetUrlRequest.builder()
             .bucket(bucketName)
@@ -55,6 +333,23 @@ public class S3Service {
         return s3Client.utilities().getUrl(getUrlRequest).toString();
     }
 
+    @Override
+    public String getDownloadUrl(String key) {
+        return downloadUrlCache.get(key, this::presignDownload);
+    }
+
+    private String presignDownload(String key) {
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+            .signatureDuration(presignedDownloadTtl)
+            .getObjectRequest(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build())
+            .build();
+        
+        return s3Presigner.presignGetObject(presignRequest).url().toString();
+    }
+
     private String generateUniqueKey(String originalFilename) {
         return UUID.randomUUID() + "-" + originalFilename;
     }
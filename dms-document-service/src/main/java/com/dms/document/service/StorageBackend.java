@@ -0,0 +1,77 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.PresignedUploadDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+// Where attached files live. Selected with storage.backend (s3 or local).
+public interface StorageBackend {
+
+    // Streams contentLength bytes into the object at key, replacing any existing object
+    void putObject(String key, InputStream inputStream, long contentLength, String contentType) throws IOException;
+
+    Optional<StoredObject> headObject(String key);
+
+    // Opens the whole object for reading; the caller closes the stream
+    InputStream getObject(String key) throws IOException;
+
+    // Writes bytes [start, end] of the object; eTag, when given, must still match
+    void writeRange(String key, long start, long end, String eTag, OutputStream outputStream) throws IOException;
+
+    void deleteFile(String key);
+
+    // Deletes the objects and returns the keys that could not be deleted
+    default Set<String> deleteFiles(Collection<String> keys) {
+        Set<String> failed = new HashSet<>();
+        for (String key : keys) {
+            try {
+                deleteFile(key);
+            } catch (RuntimeException e) {
+                failed.add(key);
+            }
+        }
+        return failed;
+    }
+
+    // Direct URL for the object, or null when it is only reachable through the service
+    String getFileUrl(String key);
+
+    // URL a client can fetch the object from right now; private backends sign it
+    default String getDownloadUrl(String key) {
+        return getFileUrl(key);
+    }
+
+    // Backends keeping objects on the local disk expose the file so it can be sent with sendfile
+    default Optional<Path> getLocalFile(String key) {
+        return Optional.empty();
+    }
+
+    // Multipart uploads assemble an object from parts sent separately, numbered from 1.
+    // Every part but the last must be at least MIN_PART_SIZE bytes.
+    long MIN_PART_SIZE = 5L * 1024 * 1024;
+    int MAX_PARTS = 10_000;
+
+    String createMultipartUpload(String key, String contentType);
+
+    void uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long contentLength) throws IOException;
+
+    void completeMultipartUpload(String key, String uploadId) throws IOException;
+
+    void abortMultipartUpload(String key, String uploadId);
+
+    // Whether clients can PUT files straight to the backend with presignUpload
+    default boolean supportsDirectUpload() {
+        return false;
+    }
+
+    default PresignedUploadDto presignUpload(String keyPrefix, String fileName, String contentType, Long fileSize) {
+        throw new UnsupportedOperationException("Direct uploads are not supported by this storage backend");
+    }
+}
@@ -0,0 +1,174 @@
+package com.dms.document.service;
+
+import com.dms.document.entity.StorageDeletion;
+import com.dms.document.repository.StorageDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Transactional outbox for stored objects. Callers enqueue keys in their own transaction, so
+// the request never waits on the storage round-trip and a rolled-back delete leaves nothing
+// behind; a scheduled worker then deletes the objects in batches and retries failures.
+@Slf4j
+@Service
+public class StorageDeletionService {
+
+    private static final String CLAIM_SQL =
+        "SELECT id, storage_key, attempts FROM storage_deletion_outbox " +
+        "WHERE next_attempt_at <= now() ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String DELETE_SQL =
+        "DELETE FROM storage_deletion_outbox WHERE id = ?";
+
+    private static final String RETRY_SQL =
+        "UPDATE storage_deletion_outbox SET attempts = attempts + 1, " +
+        "next_attempt_at = now() + ? * interval '1 millisecond', last_error = ? WHERE id = ?";
+
+    private final StorageDeletionRepository deletionRepository;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final StorageBackend storageBackend;
+    private final DiskObjectCache diskObjectCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+
+    private final Counter deletedCounter;
+    private final Counter failedCounter;
+
+    public StorageDeletionService(StorageDeletionRepository deletionRepository,
+                                  ContentAddressedStorage contentAddressedStorage,
+                                  StorageBackend storageBackend,
+                                  DiskObjectCache diskObjectCache,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${storage.deletion.batch-size:500}") int batchSize,
+                                  @Value("${storage.deletion.retry-backoff-ms:5000}") long retryBackoffMs,
+                                  @Value("${storage.deletion.max-retry-backoff-ms:3600000}") long maxRetryBackoffMs) {
+        this.deletionRepository = deletionRepository;
+        this.contentAddressedStorage = contentAddressedStorage;
+        this.storageBackend = storageBackend;
+        this.diskObjectCache = diskObjectCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+
+        this.deletedCounter = meterRegistry.counter("dms.storage.deletions.completed");
+        this.failedCounter = meterRegistry.counter("dms.storage.deletions.failed");
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Collection<String> keys) {
+        enqueue(keys, Duration.ZERO);
+    }
+
+    // Holds the deletion back for delay; a content-addressed blob referenced by then is kept
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Collection<String> keys, Duration delay) {
+        LocalDateTime now = LocalDateTime.now();
+        deletionRepository.saveAll(keys.stream()
+            .map(key -> StorageDeletion.builder()
+                .storageKey(key)
+                .createdAt(now)
+                .nextAttemptAt(now.plus(delay))
+                .build())
+            .toList());
+    }
+
+    @Scheduled(fixedDelayString = "${storage.deletion.poll-interval-ms:2000}")
+    public void drain() {
+        Integer claimed;
+        do {
+            try {
+                claimed = transactionTemplate.execute(status -> drainBatch());
+            } catch (Exception e) {
+                log.warn("Failed to drain storage deletion outbox: {}", e.getMessage());
+                return;
+            }
+        } while (claimed != null && claimed >= batchSize);
+    }
+
+    // Runs in one transaction: the claimed rows stay locked so other instances skip them,
+    // and content-addressed blobs stay locked until their objects are gone
+    private int drainBatch() {
+        List<PendingDeletion> batch = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new PendingDeletion(
+            rs.getLong("id"), rs.getString("storage_key"), rs.getInt("attempts")), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> keys = new HashSet<>();
+        Set<String> contentAddressedKeys = new HashSet<>();
+        for (PendingDeletion deletion : batch) {
+            if (ContentAddressedStorage.isContentAddressed(deletion.storageKey)) {
+                contentAddressedKeys.add(deletion.storageKey);
+            } else {
+                keys.add(deletion.storageKey);
+            }
+        }
+
+        // A blob that was uploaded again since it was released is referenced once more and stays
+        List<String> unreferenced = contentAddressedKeys.isEmpty()
+            ? List.of()
+            : contentAddressedStorage.lockUnreferenced(contentAddressedKeys);
+        keys.addAll(unreferenced);
+
+        Set<String> failed = keys.isEmpty() ? Set.of() : storageBackend.deleteFiles(keys);
+        diskObjectCache.invalidateAll(keys);
+
+        // Renditions go with their original; a leftover one is harmless and not retried
+        List<String> renditions = keys.stream()
+            .filter(key -> !failed.contains(key))
+            .flatMap(key -> PreviewService.renditionKeys(key).stream())
+            .toList();
+        if (!renditions.isEmpty()) {
+            storageBackend.deleteFiles(renditions);
+        }
+
+        List<String> deletedBlobs = unreferenced.stream().filter(key -> !failed.contains(key)).toList();
+        if (!deletedBlobs.isEmpty()) {
+            contentAddressedStorage.forget(deletedBlobs);
+        }
+
+        List<Object[]> completed = new ArrayList<>();
+        List<Object[]> retries = new ArrayList<>();
+        for (PendingDeletion deletion : batch) {
+            if (failed.contains(deletion.storageKey)) {
+                retries.add(new Object[] { backoffMs(deletion.attempts), "Delete failed", deletion.id });
+            } else {
+                completed.add(new Object[] { deletion.id });
+            }
+        }
+        jdbcTemplate.batchUpdate(DELETE_SQL, completed);
+        if (!retries.isEmpty()) {
+            jdbcTemplate.batchUpdate(RETRY_SQL, retries);
+            log.warn("Failed to delete {} stored objects, will retry", retries.size());
+        }
+
+        deletedCounter.increment(completed.size());
+        failedCounter.increment(retries.size());
+        return batch.size();
+    }
+
+    private long backoffMs(int attempts) {
+        return Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(attempts, 20));
+    }
+
+    private record PendingDeletion(long id, String storageKey, int attempts) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.dms.document.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObject {
+    private String key;
+    private long contentLength;
+    private String contentType;
+    private String eTag; // Quoted, ready to be used as an HTTP entity tag
+    private Instant lastModified;
+}
@@ -0,0 +1,31 @@
+package com.dms.document.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Simulates translation by prefixing the text; for development and tests
+@Service
+@ConditionalOnProperty(name = "translation.provider", havingValue = "stub", matchIfMissing = true)
+public class StubTranslationProvider implements TranslationProvider {
+
+    @Override
+    public List<String> translate(List<String> texts, String sourceLanguage, String targetLanguage) {
+        return texts.stream()
+            .map(text -> prefix(sourceLanguage, targetLanguage) + text)
+            .collect(Collectors.toList());
+    }
+
+    private static String prefix(String sourceLanguage, String targetLanguage) {
+        if ("en".equals(sourceLanguage) && "fr".equals(targetLanguage)) {
+            return "FR: ";
+        } else if ("en".equals(sourceLanguage) && "es".equals(targetLanguage)) {
+            return "ES: ";
+        } else if ("en".equals(sourceLanguage) && "de".equals(targetLanguage)) {
+            return "DE: ";
+        }
+        return "TRANSLATED: ";
+    }
+}
@@ -0,0 +1,258 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.DocumentEventDto;
+import com.dms.document.entity.Document;
+import com.dms.document.repository.DocumentRepository;
+import com.dms.document.repository.DocumentTextRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Extracts the text of attached files with Tika once an upload has committed, on a bounded
+// pool. Each file gets a size cap, a cap on extracted characters and a deadline. The parse
+// itself runs on a separate thread: Tika spools PDF and OOXML input to a temp file, so neither
+// closing the source stream nor an interrupt reliably stops it. A parse past its deadline is
+// abandoned to its thread and the worker moves on; a bounded number of such threads may linger
+// before new parses are refused.
+@Slf4j
+@Service
+public class TextExtractionService {
+
+    private final DocumentRepository documentRepository;
+    private final DocumentTextRepository documentTextRepository;
+    private final StorageBackend storageBackend;
+    private final Parser parser = new AutoDetectParser();
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor parseExecutor;
+    private final ExecutorService backfillExecutor;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+    private final long maxSourceBytes;
+    private final int maxChars;
+    private final long timeoutMs;
+    private final int backfillBatchSize;
+    private final int backfillQueueLimit;
+
+    private final Counter extractedCounter;
+    private final Counter failedCounter;
+    private final Counter timedOutCounter;
+    private final Counter skippedCounter;
+
+    public TextExtractionService(DocumentRepository documentRepository,
+                                 DocumentTextRepository documentTextRepository,
+                                 StorageBackend storageBackend,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${extraction.worker-threads:2}") int workerThreads,
+                                 @Value("${extraction.queue-capacity:1000}") int queueCapacity,
+                                 @Value("${extraction.max-source-bytes:52428800}") long maxSourceBytes,
+                                 @Value("${extraction.max-chars:1000000}") int maxChars,
+                                 @Value("${extraction.timeout-ms:60000}") long timeoutMs,
+                                 @Value("${extraction.max-abandoned-parses:4}") int maxAbandonedParses,
+                                 @Value("${extraction.backfill-batch-size:100}") int backfillBatchSize) {
+        this.documentRepository = documentRepository;
+        this.documentTextRepository = documentTextRepository;
+        this.storageBackend = storageBackend;
+        this.executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), daemonThreads("text-extraction"));
+        // One thread per running parse; timed-out parses keep theirs until they end on their own
+        this.parseExecutor = new ThreadPoolExecutor(0, workerThreads + maxAbandonedParses, 60L, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), daemonThreads("text-extraction-parse"));
+        this.backfillExecutor = Executors.newSingleThreadExecutor(daemonThreads("text-extraction-backfill"));
+        this.maxSourceBytes = maxSourceBytes;
+        this.maxChars = maxChars;
+        this.timeoutMs = timeoutMs;
+        this.backfillBatchSize = backfillBatchSize;
+        this.backfillQueueLimit = Math.max(1, queueCapacity / 2);
+
+        this.extractedCounter = meterRegistry.counter("dms.extraction.completed");
+        this.failedCounter = meterRegistry.counter("dms.extraction.failed");
+        this.timedOutCounter = meterRegistry.counter("dms.extraction.timed-out");
+        this.skippedCounter = meterRegistry.counter("dms.extraction.skipped");
+        meterRegistry.gaugeCollectionSize("dms.extraction.queued", Tags.empty(), executor.getQueue());
+        meterRegistry.gauge("dms.extraction.parse-threads", parseExecutor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentEvent(DocumentEventDto event) {
+        if (event.getType() != DocumentEventDto.Type.DELETED) {
+            schedule(event.getDocumentId());
+        }
+    }
+
+    // Returns false when the queue is full; the backfill picks such documents up later
+    public boolean schedule(UUID documentId) {
+        return submit(documentId, false);
+    }
+
+    public void removeDocument(UUID documentId) {
+        documentTextRepository.deleteByDocumentId(documentId);
+    }
+
+    // Walks every document whose file has no text yet, or every document with a file when
+    // force is set (e.g. after a parser upgrade). Runs in the background; false if already running.
+    public boolean startBackfill(boolean force) {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        backfillExecutor.execute(() -> {
+            try {
+                backfill(force);
+            } catch (Exception e) {
+                log.warn("Text extraction backfill failed: {}", e.getMessage());
+            } finally {
+                backfillRunning.set(false);
+            }
+        });
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+        executor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+
+    private void backfill(boolean force) throws InterruptedException {
+        UUID afterId = new UUID(0L, 0L);
+        int total = 0;
+        List<UUID> batch;
+        do {
+            batch = documentTextRepository.findExtractionBacklog(afterId, force, PageRequest.of(0, backfillBatchSize));
+            for (UUID documentId : batch) {
+                // Back-pressure: leave half the queue to new uploads instead of flooding it
+                while (executor.getQueue().size() >= backfillQueueLimit || !submit(documentId, force)) {
+                    Thread.sleep(200);
+                }
+                afterId = documentId;
+                total++;
+            }
+        } while (batch.size() == backfillBatchSize);
+        log.info("Text extraction backfill queued {} documents", total);
+    }
+
+    private boolean submit(UUID documentId, boolean force) {
+        if (!inFlight.add(documentId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    extract(documentId, force);
+                } finally {
+                    inFlight.remove(documentId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(documentId);
+            return false;
+        }
+    }
+
+    private void extract(UUID documentId, boolean force) {
+        Document document = documentRepository.findById(documentId).orElse(null);
+        if (document == null || document.getS3Key() == null) {
+            return;
+        }
+        String s3Key = document.getS3Key();
+
+        // Metadata-only updates keep the text extracted for the same file
+        if (!force && documentTextRepository.findById(documentId)
+                .filter(text -> text.getS3Key().equals(s3Key))
+                .isPresent()) {
+            return;
+        }
+
+        Optional<StoredObject> source = storageBackend.headObject(s3Key);
+        if (source.isEmpty() || source.get().getContentLength() > maxSourceBytes) {
+            skippedCounter.increment();
+            return;
+        }
+
+        BodyContentHandler handler = new BodyContentHandler(maxChars);
+        boolean truncated;
+
+        try (InputStream inputStream = storageBackend.getObject(s3Key)) {
+            Metadata metadata = new Metadata();
+            if (document.getFileType() != null) {
+                metadata.set(Metadata.CONTENT_TYPE, document.getFileType());
+            }
+
+            Future<Boolean> parse;
+            try {
+                parse = parseExecutor.submit(() -> parse(inputStream, handler, metadata));
+            } catch (RejectedExecutionException e) {
+                // Too many abandoned parses still running; the backfill picks the document up later
+                log.warn("Text extraction for document {} skipped, too many parses stuck", documentId);
+                skippedCounter.increment();
+                return;
+            }
+
+            try {
+                truncated = parse.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                parse.cancel(true);
+                log.warn("Text extraction for document {} timed out after {} ms", documentId, timeoutMs);
+                timedOutCounter.increment();
+                return;
+            } catch (InterruptedException e) {
+                parse.cancel(true);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        } catch (Exception e) {
+            log.warn("Text extraction for document {} failed: {}", documentId, e.getMessage());
+            failedCounter.increment();
+            return;
+        }
+
+        // Postgres text columns cannot hold NUL characters
+        String text = handler.toString().replace("\u0000", "").strip();
+        documentTextRepository.storeExtractedText(documentId, s3Key, text, truncated);
+        extractedCounter.increment();
+    }
+
+    // Returns whether the text was cut off at maxChars
+    private boolean parse(InputStream inputStream, BodyContentHandler handler, Metadata metadata) throws Exception {
+        try {
+            parser.parse(inputStream, handler, metadata, new ParseContext());
+            return false;
+        } catch (Exception e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,221 @@
+package com.dms.document.service;
+
+import com.dms.common.dto.DocumentEventDto;
+import com.dms.document.entity.Document;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Translates titles of documents saved with a PENDING translation, outside the request and
+// its transaction. A commit schedules a drain after a short delay so titles saved close
+// together go out in one bulk request; a periodic sweep picks up what was saved while this
+// node was down. Each node claims its batch for claim-timeout-ms, so nodes do not translate
+// the same titles. A batch the provider rejects is split until the rejected titles are
+// isolated; those are retried with backoff and marked FAILED after max-attempts. When the
+// provider is unreachable or failing, the drain stops and the batch waits retry-backoff-ms
+// without being charged an attempt.
+@Slf4j
+@Service
+public class TitleTranslationWorker {
+
+    // For demo purposes, titles are translated to French
+    private static final String SOURCE_LANGUAGE = "en";
+    private static final String TARGET_LANGUAGE = "fr";
+
+    private static final String CLAIM_SQL =
+        "UPDATE documents SET next_translation_at = ? WHERE id IN (" +
+        "SELECT id FROM documents WHERE translation_status = 'PENDING' " +
+        "AND (next_translation_at IS NULL OR next_translation_at <= ?) " +
+        "ORDER BY updated_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, title, translation_attempts";
+
+    // Skips documents whose title changed meanwhile; they stay pending for the next round
+    private static final String COMPLETE_SQL =
+        "UPDATE documents SET translated_title = ?, translation_status = 'COMPLETED', next_translation_at = NULL " +
+        "WHERE id = ? AND title = ? AND translation_status = 'PENDING'";
+
+    private static final String POSTPONE_SQL =
+        "UPDATE documents SET next_translation_at = ? WHERE id = ? AND translation_status = 'PENDING'";
+
+    private static final String RETRY_SQL =
+        "UPDATE documents SET translation_attempts = ?, next_translation_at = ?, translation_status = ? " +
+        "WHERE id = ? AND title = ? AND translation_status = 'PENDING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TranslationService translationService;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final int batchSize;
+    private final long batchDelayMs;
+    private final long claimTimeoutMs;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+    private final int maxAttempts;
+
+    private final Counter translatedCounter;
+    private final Counter failedCounter;
+
+    public TitleTranslationWorker(JdbcTemplate jdbcTemplate,
+                                  TranslationService translationService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${translation.worker.batch-size:200}") int batchSize,
+                                  @Value("${translation.worker.batch-delay-ms:250}") long batchDelayMs,
+                                  @Value("${translation.worker.claim-timeout-ms:300000}") long claimTimeoutMs,
+                                  @Value("${translation.worker.retry-backoff-ms:30000}") long retryBackoffMs,
+                                  @Value("${translation.worker.max-retry-backoff-ms:3600000}") long maxRetryBackoffMs,
+                                  @Value("${translation.worker.max-attempts:10}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.translationService = translationService;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "title-translation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSize = batchSize;
+        this.batchDelayMs = batchDelayMs;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+        this.maxAttempts = maxAttempts;
+
+        this.translatedCounter = meterRegistry.counter("dms.translation.titles.translated");
+        this.failedCounter = meterRegistry.counter("dms.translation.titles.failed");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentEvent(DocumentEventDto event) {
+        if (event.getType() != DocumentEventDto.Type.DELETED) {
+            scheduleDrain();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${translation.worker.sweep-interval-ms:30000}")
+    public void sweep() {
+        scheduleDrain();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void scheduleDrain() {
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.schedule(this::drain, batchDelayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+        }
+    }
+
+    private void drain() {
+        // Commits from now on schedule another drain
+        drainScheduled.set(false);
+        try {
+            List<PendingTitle> batch;
+            do {
+                // Claimed rows are skipped by other nodes until the claim runs out
+                LocalDateTime now = LocalDateTime.now();
+                batch = jdbcTemplate.query(CLAIM_SQL,
+                    (rs, rowNum) -> new PendingTitle(rs.getObject("id", UUID.class), rs.getString("title"),
+                        rs.getInt("translation_attempts")),
+                    now.plus(claimTimeoutMs, ChronoUnit.MILLIS), now, batchSize);
+                if (!batch.isEmpty() && !translateOrPostpone(batch)) {
+                    return;
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            // Claimed rows are picked up again once their claim runs out
+            log.warn("Title translation failed: {}", e.getMessage());
+        }
+    }
+
+    // Returns false when the provider failed; the titles not settled yet wait for a later drain
+    private boolean translateOrPostpone(List<PendingTitle> batch) {
+        Set<UUID> settled = new HashSet<>();
+        try {
+            translate(batch, settled);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Title translation failed, retrying in {} ms: {}", retryBackoffMs, e.getMessage());
+            LocalDateTime retryAt = LocalDateTime.now().plus(retryBackoffMs, ChronoUnit.MILLIS);
+            jdbcTemplate.batchUpdate(POSTPONE_SQL, batch.stream()
+                .filter(pending -> !settled.contains(pending.id()))
+                .map(pending -> new Object[] {retryAt, pending.id()})
+                .toList());
+            failedCounter.increment();
+            return false;
+        }
+    }
+
+    // A text the provider rejects fails the whole request, so halve the batch until it is
+    // isolated and let the rest through. Any other failure is thrown.
+    private void translate(List<PendingTitle> batch, Set<UUID> settled) {
+        Map<String, String> translations;
+        try {
+            translations = translationService.translateAll(
+                batch.stream().map(PendingTitle::title).toList(), SOURCE_LANGUAGE, TARGET_LANGUAGE);
+        } catch (TranslationProvider.RejectedException e) {
+            if (batch.size() > 1) {
+                translate(batch.subList(0, batch.size() / 2), settled);
+                translate(batch.subList(batch.size() / 2, batch.size()), settled);
+            } else {
+                retryLater(batch.get(0), e);
+                settled.add(batch.get(0).id());
+            }
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (PendingTitle pending : batch) {
+            rows.add(new Object[] {translations.get(pending.title()), pending.id(), pending.title()});
+        }
+
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(COMPLETE_SQL, rows)) {
+            updated += Math.max(count, 0);
+        }
+        translatedCounter.increment(updated);
+        batch.forEach(pending -> settled.add(pending.id()));
+    }
+
+    private void retryLater(PendingTitle pending, Exception e) {
+        int attempts = pending.attempts() + 1;
+        Document.TranslationStatus status = attempts >= maxAttempts
+            ? Document.TranslationStatus.FAILED
+            : Document.TranslationStatus.PENDING;
+        log.warn("Failed to translate title of document {} (attempt {}): {}", pending.id(), attempts, e.getMessage());
+        jdbcTemplate.update(RETRY_SQL, attempts, LocalDateTime.now().plus(backoffMs(attempts), ChronoUnit.MILLIS),
+            status.name(), pending.id(), pending.title());
+        failedCounter.increment();
+    }
+
+    private long backoffMs(int attempts) {
+        return Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(attempts - 1, 20));
+    }
+
+    private record PendingTitle(UUID id, String title, int attempts) {
+    }
+}
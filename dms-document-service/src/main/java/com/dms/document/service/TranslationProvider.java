@@ -0,0 +1,18 @@
+package com.dms.document.service;
+
+import java.util.List;
+
+// Machine translation backend. Selected with translation.provider (stub or http).
+public interface TranslationProvider {
+
+    // Translates every text in one request; the result is in the same order as texts. Fails with
+    // RejectedException when the provider refuses the texts themselves, which retrying will not
+    // change; any other exception means the provider could not be reached or failed.
+    List<String> translate(List<String> texts, String sourceLanguage, String targetLanguage);
+
+    class RejectedException extends RuntimeException {
+        public RejectedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -1,62 +1,127 @@
 package com.dms.document.service;
 
+import com.dms.document.entity.TranslationCacheEntry;
+import com.dms.document.repository.TranslationCacheRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.*;
 
+// Translations are cached by (normalized text, source, target): a bounded in-memory tier in
+// front of the translation_cache table, so a title like "Monthly Report" is only ever sent to
+// the translation provider once, across restarts and instances. Misses are sent in batches.
 @Service
 public class TranslationService {
     
-    private final RestTemplate restTemplate;
+    private static final String STORE_SQL =
+        "INSERT INTO translation_cache (cache_key, source_language, target_language, source_text, translated_text, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, now()) ON CONFLICT (cache_key) DO NOTHING";
     
-    @Value("${translation.api.url:https://api.example-translation.com/translate}")
-    private String translationApiUrl;
+    private final TranslationProvider translationProvider;
+    private final TranslationCacheRepository cacheRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, String> memoryCache;
+    private final int batchSize;
     
-    @Value("${translation.api.key:dummy-key}")
-    private String apiKey;
+    private final Counter memoryHitCounter;
+    private final Counter databaseHitCounter;
+    private final Counter missCounter;
     
-    public TranslationService() {
-        this.restTemplate = new RestTemplate();
+    public TranslationService(TranslationProvider translationProvider,
+                              TranslationCacheRepository cacheRepository,
+                              JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${translation.cache.max-entries:10000}") long maxEntries,
+                              @Value("${translation.batch-size:50}") int batchSize) {
+        this.translationProvider = translationProvider;
+        this.cacheRepository = cacheRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.memoryCache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .build();
+        this.batchSize = batchSize;
+        
+        this.memoryHitCounter = meterRegistry.counter("dms.translation.cache.hits", "tier", "memory");
+        this.databaseHitCounter = meterRegistry.counter("dms.translation.cache.hits", "tier", "database");
+        this.missCounter = meterRegistry.counter("dms.translation.cache.misses");
     }
     
-    public String translateText(String text, String sourceLanguage, String targetLanguage) {
-        // For demo purposes, we'll just append a prefix to simulate translation
-        // In a real implementation, you would call an actual translation API
+    // Translations of texts keyed by the original text. Cache misses go to the provider in
+    // requests of at most translation.batch-size texts.
+    public Map<String, String> translateAll(Collection<String> texts, String sourceLanguage, String targetLanguage) {
+        String source = sourceLanguage.toLowerCase(Locale.ROOT);
+        String target = targetLanguage.toLowerCase(Locale.ROOT);
         
-        // Simulated translation for demo
-        if ("en".equals(sourceLanguage) && "fr".equals(targetLanguage)) {
-            return "FR: " + text;
-        } else if ("en".equals(sourceLanguage) && "es".equals(targetLanguage)) {
-            return "ES: " + text;
-        } else if ("en".equals(sourceLanguage) && "de".equals(targetLanguage)) {
-            return "DE: " + text;
+        // Texts that normalize alike share one cache key and one provider call
+        Map<String, String> keyByText = new HashMap<>();
+        Map<String, String> normalizedByKey = new LinkedHashMap<>();
+        for (String text : texts) {
+            if (text != null && !text.isBlank() && !keyByText.containsKey(text)) {
+                String normalizedText = normalize(text);
+                String cacheKey = cacheKey(normalizedText, source, target);
+                keyByText.put(text, cacheKey);
+                normalizedByKey.putIfAbsent(cacheKey, normalizedText);
+            }
         }
         
-        // Default simulated translation
-        return "TRANSLATED: " + text;
-        
-        /* Real implementation would be something like:
-        Map<String, Object> request = new HashMap<>();
-        request.put("text", text);
-        request.put("source", sourceLanguage);
-        request.put("target", targetLanguage);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + apiKey);
+        Map<String, String> translatedByKey = new HashMap<>(memoryCache.getAllPresent(normalizedByKey.keySet()));
+        memoryHitCounter.increment(translatedByKey.size());
         
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
+        Set<String> missing = new HashSet<>(normalizedByKey.keySet());
+        missing.removeAll(translatedByKey.keySet());
+        if (!missing.isEmpty()) {
+            for (TranslationCacheEntry entry : cacheRepository.findAllById(missing)) {
+                translatedByKey.put(entry.getCacheKey(), entry.getTranslatedText());
+                memoryCache.put(entry.getCacheKey(), entry.getTranslatedText());
+                databaseHitCounter.increment();
+            }
+            missing.removeAll(translatedByKey.keySet());
+        }
         
-        ResponseEntity<Map> response = restTemplate.exchange(
-            translationApiUrl,
-            HttpMethod.POST,
-            entity,
-            Map.class
-        );
+        List<String> missingKeys = new ArrayList<>(missing);
+        missCounter.increment(missingKeys.size());
+        for (int start = 0; start < missingKeys.size(); start += batchSize) {
+            List<String> keys = missingKeys.subList(start, Math.min(start + batchSize, missingKeys.size()));
+            List<String> translated = translationProvider.translate(
+                keys.stream().map(normalizedByKey::get).toList(), source, target);
+            
+            // Concurrent misses for the same text both translate; the first stored result wins
+            List<Object[]> rows = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                String cacheKey = keys.get(i);
+                translatedByKey.put(cacheKey, translated.get(i));
+                memoryCache.put(cacheKey, translated.get(i));
+                rows.add(new Object[] {cacheKey, source, target, normalizedByKey.get(cacheKey), translated.get(i)});
+            }
+            jdbcTemplate.batchUpdate(STORE_SQL, rows);
+        }
         
-        return (String) response.getBody().get("translatedText");
-        */
+        Map<String, String> result = new HashMap<>();
+        keyByText.forEach((text, cacheKey) -> result.put(text, translatedByKey.get(cacheKey)));
+        return result;
+    }
+    
+    // Titles that differ only in Unicode form or spacing share one translation
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).strip().replaceAll("\\s+", " ");
+    }
+    
+    private static String cacheKey(String normalizedText, String sourceLanguage, String targetLanguage) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((sourceLanguage + "\n" + targetLanguage + "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(normalizedText.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
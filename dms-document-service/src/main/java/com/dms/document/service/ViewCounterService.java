@@ -0,0 +1,266 @@
+package com.dms.document.service;
+
+import com.dms.document.entity.DocumentViewCount;
+import com.dms.document.repository.DocumentViewCountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Service
+public class ViewCounterService {
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO document_view_counts (document_id, department_id, view_count, last_viewed_at) " +
+        "SELECT t.document_id, t.department_id, t.view_count, now() " +
+        "FROM unnest(?, ?, ?) AS t(document_id, department_id, view_count) " +
+        "ON CONFLICT (document_id) DO UPDATE SET " +
+        "view_count = document_view_counts.view_count + EXCLUDED.view_count, " +
+        "department_id = EXCLUDED.department_id, " +
+        "last_viewed_at = EXCLUDED.last_viewed_at " +
+        "RETURNING document_id, department_id, view_count";
+
+    private static final String TOP_K_SQL =
+        "SELECT document_id, department_id, view_count FROM (" +
+        "SELECT document_id, department_id, view_count, " +
+        "row_number() OVER (PARTITION BY department_id ORDER BY view_count DESC) AS view_rank " +
+        "FROM document_view_counts) ranked WHERE view_rank <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentViewCountRepository viewCountRepository;
+    private final int topK;
+    private final int batchSize;
+    private final int idleFlushes;
+
+    // Views counted since the last flush and the last known total, keyed by recently viewed document
+    private final ConcurrentHashMap<UUID, PendingViews> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, DepartmentTopK> rankings = new ConcurrentHashMap<>();
+
+    public ViewCounterService(JdbcTemplate jdbcTemplate,
+                              DocumentViewCountRepository viewCountRepository,
+                              @Value("${views.top-k:50}") int topK,
+                              @Value("${views.flush-batch-size:500}") int batchSize,
+                              @Value("${views.idle-flushes:12}") int idleFlushes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.viewCountRepository = viewCountRepository;
+        this.topK = topK;
+        this.batchSize = batchSize;
+        this.idleFlushes = idleFlushes;
+    }
+
+    // Returns the document's view count including this view
+    public long recordView(UUID documentId, UUID departmentId) {
+        PendingViews views = pendingViews(documentId, departmentId);
+        views.count.increment();
+        if (views.retired) {
+            // flush() dropped the entry after this thread found it; move the view to a live one
+            long moved = views.count.sumThenReset();
+            views = pendingViews(documentId, departmentId);
+            views.count.add(moved);
+        }
+        return viewCount(documentId, views);
+    }
+
+    // Last flushed total plus views not flushed yet on this node
+    private long viewCount(UUID documentId, PendingViews views) {
+        long persisted = views.persisted.get();
+        if (persisted < 0) {
+            // Only the first view of a document this node has not flushed or ranked reads the table
+            Long ranked = rankedCount(documentId, views.departmentId);
+            long loaded = ranked != null ? ranked : viewCountRepository.findById(documentId)
+                .map(DocumentViewCount::getViewCount)
+                .orElse(0L);
+            views.persisted.compareAndSet(-1, loaded);
+            persisted = views.persisted.get();
+        }
+        return persisted + views.flushing + views.count.sum();
+    }
+
+    private Long rankedCount(UUID documentId, UUID departmentId) {
+        DepartmentTopK ranking = rankings.get(departmentId);
+        return ranking != null ? ranking.get(documentId) : null;
+    }
+
+    // Most viewed document ids across the given departments (all departments when null)
+    public LinkedHashMap<UUID, Long> getMostViewed(Set<UUID> departmentIds, int limit) {
+        List<Map.Entry<UUID, Long>> entries = new ArrayList<>();
+        rankings.forEach((departmentId, ranking) -> {
+            if (departmentIds == null || departmentIds.contains(departmentId)) {
+                entries.addAll(ranking.snapshot().entrySet());
+            }
+        });
+        entries.sort(Map.Entry.<UUID, Long>comparingByValue().reversed());
+
+        LinkedHashMap<UUID, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Long> entry : entries) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    public void removeDocument(UUID documentId) {
+        pending.remove(documentId);
+        rankings.values().forEach(ranking -> ranking.remove(documentId));
+        viewCountRepository.deleteById(documentId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRankings() {
+        try {
+            jdbcTemplate.query(TOP_K_SQL, rs -> {
+                updateRanking(rs.getObject("document_id", UUID.class),
+                    rs.getObject("department_id", UUID.class),
+                    rs.getLong("view_count"));
+            }, topK);
+        } catch (Exception e) {
+            log.warn("Could not load view rankings: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${views.flush-interval-ms:5000}")
+    public void flush() {
+        List<UUID> documentIds = new ArrayList<>(batchSize);
+        List<UUID> departmentIds = new ArrayList<>(batchSize);
+        List<Long> counts = new ArrayList<>(batchSize);
+        List<PendingViews> flushed = new ArrayList<>(batchSize);
+
+        for (Map.Entry<UUID, PendingViews> entry : pending.entrySet()) {
+            PendingViews views = entry.getValue();
+            long count = views.drain();
+            if (count == 0) {
+                if (++views.idleFlushes >= idleFlushes) {
+                    retire(entry.getKey(), views);
+                }
+                continue;
+            }
+            views.idleFlushes = 0;
+            documentIds.add(entry.getKey());
+            departmentIds.add(views.departmentId);
+            counts.add(count);
+            flushed.add(views);
+
+            if (documentIds.size() >= batchSize) {
+                upsert(documentIds, departmentIds, counts, flushed);
+                documentIds.clear();
+                departmentIds.clear();
+                counts.clear();
+                flushed.clear();
+            }
+        }
+        if (!documentIds.isEmpty()) {
+            upsert(documentIds, departmentIds, counts, flushed);
+        }
+    }
+
+    // Stops tracking a document that has not been viewed for a while. retired is set before
+    // the count is checked, so a recordView racing with this either leaves a non-zero count
+    // here or sees the flag and moves its view to a new entry.
+    private void retire(UUID documentId, PendingViews views) {
+        pending.computeIfPresent(documentId, (id, existing) -> {
+            if (existing != views) {
+                return existing;
+            }
+            views.retired = true;
+            if (views.count.sum() != 0) {
+                views.retired = false;
+                return existing;
+            }
+            return null;
+        });
+    }
+
+    private void upsert(List<UUID> documentIds, List<UUID> departmentIds, List<Long> counts,
+                        List<PendingViews> flushed) {
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(UPSERT_SQL);
+                Array documentArray = connection.createArrayOf("uuid", documentIds.toArray());
+                Array departmentArray = connection.createArrayOf("uuid", departmentIds.toArray());
+                Array countArray = connection.createArrayOf("bigint", counts.toArray());
+                statement.setArray(1, documentArray);
+                statement.setArray(2, departmentArray);
+                statement.setArray(3, countArray);
+                return statement;
+            }, rs -> {
+                UUID documentId = rs.getObject("document_id", UUID.class);
+                long total = rs.getLong("view_count");
+                updateRanking(documentId, rs.getObject("department_id", UUID.class), total);
+                // The total includes views flushed by other nodes
+                PendingViews views = pending.get(documentId);
+                if (views != null) {
+                    views.persisted.set(total);
+                }
+            });
+        } catch (Exception e) {
+            // Put the counts back so they are retried with the next flush
+            log.warn("Failed to flush {} view counters: {}", documentIds.size(), e.getMessage());
+            for (int i = 0; i < documentIds.size(); i++) {
+                pendingViews(documentIds.get(i), departmentIds.get(i)).count.add(counts.get(i));
+            }
+        } finally {
+            flushed.forEach(views -> views.flushing = 0);
+        }
+    }
+
+    private PendingViews pendingViews(UUID documentId, UUID departmentId) {
+        PendingViews views = pending.get(documentId);
+        if (views != null && views.departmentId.equals(departmentId)) {
+            return views;
+        }
+        // First view since the last flush, or the document moved to another department
+        return pending.compute(documentId, (id, existing) ->
+            existing != null && existing.departmentId.equals(departmentId)
+                ? existing
+                : new PendingViews(departmentId, existing));
+    }
+
+    private void updateRanking(UUID documentId, UUID departmentId, long total) {
+        // A document that moved department must drop out of its old ranking
+        rankings.forEach((rankedDepartmentId, ranking) -> {
+            if (!rankedDepartmentId.equals(departmentId)) {
+                ranking.remove(documentId);
+            }
+        });
+        rankings.computeIfAbsent(departmentId, id -> new DepartmentTopK(topK)).offer(documentId, total);
+    }
+
+    private static final class PendingViews {
+        private final UUID departmentId;
+        private final LongAdder count = new LongAdder();
+        // Total as of the last flush, -1 until known
+        private final AtomicLong persisted = new AtomicLong(-1);
+        // Drained by the running flush but not yet part of persisted
+        private volatile long flushing;
+        private volatile boolean retired;
+        // Only touched by flush()
+        private int idleFlushes;
+
+        private PendingViews(UUID departmentId, PendingViews carryOver) {
+            this.departmentId = departmentId;
+            if (carryOver != null) {
+                count.add(carryOver.count.sum());
+                persisted.set(carryOver.persisted.get());
+            }
+        }
+
+        private long drain() {
+            long drained = count.sumThenReset();
+            flushing = drained;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.dms.document.service;
+
+import com.dms.document.entity.Document;
+import com.dms.document.repository.DocumentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Streams the files of many documents as one ZIP, built while it is sent. The next few objects
+// are fetched in parallel into bounded pipes while the current entry is written, so storage
+// latency overlaps with the transfer and memory stays at prefetch * buffer-bytes per bundle.
+// The bundle is written on the MVC async executor (see AsyncConfig), on a virtual thread of its
+// own when virtual threads are enabled. The pipes wait with java.util.concurrent rather than
+// on monitors, so on Java 21 such a thread unmounts instead of pinning its carrier.
+@Slf4j
+@Service
+public class ZipBundleService {
+
+    private final DocumentRepository documentRepository;
+    private final StorageBackend storageBackend;
+    private final ExecutorService fetchExecutor;
+    private final int prefetch;
+    private final int bufferBytes;
+    private final int maxDocuments;
+    private final long stallTimeoutNanos;
+
+    private static final int CHUNK_BYTES = 65536;
+
+    public ZipBundleService(DocumentRepository documentRepository,
+                            StorageBackend storageBackend,
+                            @Value("${bundle.fetch-threads:16}") int fetchThreads,
+                            @Value("${bundle.prefetch:3}") int prefetch,
+                            @Value("${bundle.buffer-bytes:1048576}") int bufferBytes,
+                            @Value("${bundle.max-documents:5000}") int maxDocuments,
+                            @Value("${bundle.stall-timeout-ms:60000}") long stallTimeoutMs,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.documentRepository = documentRepository;
+        this.storageBackend = storageBackend;
+        // Fetches only wait on storage, so in virtual-thread mode they need no platform threads
+        this.fetchExecutor = Executors.newFixedThreadPool(fetchThreads, virtualThreads
+            ? Thread.ofVirtual().name("bundle-fetch").factory()
+            : runnable -> {
+                Thread thread = new Thread(runnable, "bundle-fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.prefetch = prefetch;
+        this.bufferBytes = bufferBytes;
+        this.maxDocuments = maxDocuments;
+        this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMs);
+    }
+
+    // Documents with a file among documentIds, or in departmentId when no ids are given.
+    // visibleDepartmentIds is null for callers that may see every department.
+    public List<Document> findBundleDocuments(UUID departmentId, List<UUID> documentIds,
+                                              Set<UUID> visibleDepartmentIds, UUID userId) {
+        List<Document> documents = documentIds != null && !documentIds.isEmpty()
+            ? documentRepository.findAllById(documentIds)
+            : documentRepository.findByDepartmentId(departmentId);
+
+        return documents.stream()
+            .filter(document -> document.getS3Key() != null)
+            .filter(document -> visibleDepartmentIds == null
+                || visibleDepartmentIds.contains(document.getDepartmentId())
+                || document.getCreatedBy().equals(userId))
+            .limit(maxDocuments)
+            .collect(Collectors.toList());
+    }
+
+    public StreamingResponseBody createBundle(List<Document> documents) {
+        return outputStream -> writeBundle(documents, outputStream);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    private void writeBundle(List<Document> documents, OutputStream outputStream) throws IOException {
+        Deque<PendingEntry> pending = new ArrayDeque<>();
+        Set<String> entryNames = new HashSet<>();
+        List<String> failures = new ArrayList<>();
+        int next = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        // Most attachments are already compressed; don't spend CPU trying hard
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        try {
+            while (next < documents.size() || !pending.isEmpty()) {
+                while (next < documents.size() && pending.size() <= prefetch) {
+                    pending.add(startFetch(documents.get(next++)));
+                }
+
+                PendingEntry entry = pending.poll();
+                ZipEntry zipEntry = new ZipEntry(uniqueName(entry.document, entryNames));
+                if (entry.document.getUpdatedAt() != null) {
+                    zipEntry.setTime(entry.document.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                }
+
+                zip.putNextEntry(zipEntry);
+                try (InputStream inputStream = entry.inputStream) {
+                    inputStream.transferTo(zip);
+                }
+                zip.closeEntry();
+
+                Exception failure = awaitFetch(entry);
+                if (failure != null) {
+                    failures.add(zipEntry.getName() + ": " + failure.getMessage());
+                }
+            }
+
+            // The response is already committed, so missing files are reported inside the archive
+            if (!failures.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("ERRORS.txt"));
+                zip.write(String.join("\n", failures).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            // Client went away or the bundle failed: stop the fetches still running
+            for (PendingEntry entry : pending) {
+                entry.task.cancel(true);
+                closeQuietly(entry.inputStream);
+            }
+        }
+    }
+
+    private PendingEntry startFetch(Document document) throws IOException {
+        ChunkPipe pipe = new ChunkPipe(Math.max(1, bufferBytes / CHUNK_BYTES), stallTimeoutNanos);
+        PendingEntry entry = new PendingEntry(document, pipe.source());
+
+        entry.task = fetchExecutor.submit(() -> {
+            try (OutputStream outputStream = new BufferedOutputStream(pipe.sink(), CHUNK_BYTES)) {
+                long length = document.getFileSize() != null
+                    ? document.getFileSize()
+                    : storageBackend.headObject(document.getS3Key())
+                        .orElseThrow(() -> new IOException("Stored file not found"))
+                        .getContentLength();
+                if (length > 0) {
+                    storageBackend.writeRange(document.getS3Key(), 0, length - 1, null, outputStream);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to fetch {} for bundle: {}", document.getS3Key(), e.getMessage());
+                entry.failure = e;
+            }
+            return null;
+        });
+        return entry;
+    }
+
+    // The pipe reaches its end both on success and on failure, so ask the fetch how it went
+    private static Exception awaitFetch(PendingEntry entry) throws IOException {
+        try {
+            entry.task.get();
+            return entry.failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bundle interrupted");
+        } catch (ExecutionException e) {
+            return e;
+        }
+    }
+
+    private static String uniqueName(Document document, Set<String> entryNames) {
+        String name = document.getFileName() != null ? document.getFileName() : document.getId().toString();
+        name = name.replace('\\', '_').replace('/', '_');
+
+        String candidate = name;
+        int counter = 2;
+        while (!entryNames.add(candidate)) {
+            int dot = name.lastIndexOf('.');
+            candidate = dot > 0
+                ? name.substring(0, dot) + " (" + counter + ")" + name.substring(dot)
+                : name + " (" + counter + ")";
+            counter++;
+        }
+        return candidate;
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+
+    // Bounded single-producer, single-consumer pipe of byte chunks. Closing the source makes
+    // pending and later writes fail, which stops the fetch when the bundle is abandoned. Closing
+    // the sink never blocks, and a reader waits at most stallTimeout for the next chunk, so a
+    // fetch that was cancelled or never started cannot hold the bundle forever.
+    private static final class ChunkPipe {
+        private static final byte[] END = new byte[0];
+
+        private final BlockingQueue<byte[]> chunks;
+        private final long stallTimeoutNanos;
+        private volatile boolean closed;
+        private volatile boolean finished;
+
+        private ChunkPipe(int capacity, long stallTimeoutNanos) {
+            this.chunks = new ArrayBlockingQueue<>(capacity);
+            this.stallTimeoutNanos = stallTimeoutNanos;
+        }
+
+        private OutputStream sink() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (len > 0) {
+                        put(Arrays.copyOfRange(b, off, off + len));
+                    }
+                }
+
+                @Override
+                public void close() {
+                    finished = true;
+                }
+            };
+        }
+
+        private InputStream source() {
+            return new InputStream() {
+                private byte[] chunk;
+                private int position;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] single = new byte[1];
+                    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (chunk == null || position == chunk.length) {
+                        if (chunk == END) {
+                            return -1;
+                        }
+                        chunk = take();
+                        position = 0;
+                        if (chunk == END) {
+                            return -1;
+                        }
+                    }
+                    int count = Math.min(len, chunk.length - position);
+                    System.arraycopy(chunk, position, b, off, count);
+                    position += count;
+                    return count;
+                }
+
+                @Override
+                public void close() {
+                    closed = true;
+                    chunks.clear();
+                }
+            };
+        }
+
+        private void put(byte[] chunk) throws IOException {
+            try {
+                while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        throw new IOException("Bundle entry closed");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Fetch interrupted");
+            }
+        }
+
+        private byte[] take() throws IOException {
+            long deadline = System.nanoTime() + stallTimeoutNanos;
+            try {
+                while (true) {
+                    byte[] chunk = chunks.poll(100, TimeUnit.MILLISECONDS);
+                    if (chunk != null) {
+                        return chunk;
+                    }
+                    if (finished) {
+                        // Chunks written before the sink was closed are already queued
+                        chunk = chunks.poll();
+                        return chunk != null ? chunk : END;
+                    }
+                    if (System.nanoTime() - deadline > 0) {
+                        throw new IOException("Bundle entry stalled");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Bundle interrupted");
+            }
+        }
+    }
+
+    private static final class PendingEntry {
+        private final Document document;
+        private final InputStream inputStream;
+        private volatile Future<?> task;
+        private volatile Exception failure;
+
+        private PendingEntry(Document document, InputStream inputStream) {
+            this.document = document;
+            this.inputStream = inputStream;
+        }
+    }
+}
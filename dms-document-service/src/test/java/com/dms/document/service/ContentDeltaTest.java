@@ -0,0 +1,100 @@
+package com.dms.document.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentDeltaTest {
+
+    static Stream<Arguments> edits() {
+        return Stream.of(
+            Arguments.of(null, "first\nsecond\n"),
+            Arguments.of("", "only line"),
+            Arguments.of("a\nb\nc\n", ""),
+            Arguments.of("a\nb\nc\n", "a\nb\nc\n"),
+            Arguments.of("a\nb\nc\n", "a\nx\nc\n"),
+            Arguments.of("a\nb\nc\n", "c\nb\na\n"),
+            Arguments.of("a\nb\nc", "a\nb\nc\nd"),
+            Arguments.of("a\nb\nc\n", "a\nb\nc"),
+            Arguments.of("a\r\nb\r\n", "a\r\nchanged\r\nb\r\n"),
+            Arguments.of("x\nx\nx\nx\n", "x\nx\ny\nx\nx\nx\n"),
+            Arguments.of("head\n", "head\nI3:not an op\nC0,1;\n"),
+            Arguments.of("ünïcödé\n", "ünïcödé\n🙂 emoji\n"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("edits")
+    void applyRestoresTarget(String base, String target) {
+        assertEquals(target, ContentDelta.apply(base, ContentDelta.encode(base, target)));
+    }
+
+    @Test
+    void unchangedContentEncodesAsSingleCopy() {
+        String content = "one\ntwo\nthree\n";
+        assertEquals("C0,3;", ContentDelta.encode(content, content));
+    }
+
+    @Test
+    void smallEditIsSmallerThanContent() {
+        StringBuilder base = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            base.append("line ").append(i).append('\n');
+        }
+        String target = base.toString().replace("line 250\n", "edited line\n");
+        String delta = ContentDelta.encode(base.toString(), target);
+        assertTrue(delta.length() < 100, delta);
+        assertEquals(target, ContentDelta.apply(base.toString(), delta));
+    }
+
+    @Test
+    void randomEditsRoundTrip() {
+        Random random = new Random(42);
+        String base = randomText(random, 200);
+        for (int i = 0; i < 200; i++) {
+            String target = mutate(random, base);
+            assertEquals(target, ContentDelta.apply(base, ContentDelta.encode(base, target)));
+            base = target;
+        }
+    }
+
+    @Test
+    void corruptDeltaIsRejected() {
+        assertThrows(IllegalStateException.class, () -> ContentDelta.apply("a\n", "X1;"));
+    }
+
+    private static String randomText(Random random, int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            // A small alphabet so lines repeat and the copy search has several candidates
+            text.append("line-").append(random.nextInt(20)).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String mutate(Random random, String text) {
+        String[] lines = text.split("(?<=\n)");
+        StringBuilder result = new StringBuilder();
+        for (String line : lines) {
+            int roll = random.nextInt(10);
+            if (roll == 0) {
+                continue;
+            }
+            if (roll == 1) {
+                result.append("inserted-").append(random.nextInt(1000)).append('\n');
+            }
+            result.append(line);
+        }
+        if (random.nextBoolean()) {
+            result.append("tail without newline");
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package com.dms.document.service;
+
+import com.dms.document.entity.Document;
+import com.dms.document.entity.DocumentVersion;
+import com.dms.document.repository.DocumentVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DocumentVersionServiceTest {
+
+    private static final int SNAPSHOT_INTERVAL = 5;
+
+    private final List<DocumentVersion> versions = new ArrayList<>();
+    private DocumentVersionService versionService;
+    private Document document;
+
+    @BeforeEach
+    void setUp() {
+        // Backs the repository with a list, enough for the queries versioning uses
+        DocumentVersionRepository repository = mock(DocumentVersionRepository.class);
+        when(repository.save(any(DocumentVersion.class))).thenAnswer(invocation -> {
+            DocumentVersion version = invocation.getArgument(0);
+            versions.add(version);
+            return version;
+        });
+        when(repository.findTopByDocumentIdOrderByVersionNumberDesc(any())).thenAnswer(invocation ->
+            versions.stream().max(Comparator.comparingInt(DocumentVersion::getVersionNumber)));
+        when(repository.findByDocumentIdAndVersionNumber(any(), anyInt())).thenAnswer(invocation ->
+            find(invocation.getArgument(1)));
+        when(repository.findTopByDocumentIdAndSnapshotTrueAndVersionNumberLessThanEqualOrderByVersionNumberDesc(any(), anyInt()))
+            .thenAnswer(invocation -> versions.stream()
+                .filter(version -> version.isSnapshot() && version.getVersionNumber() <= (int) invocation.getArgument(1))
+                .max(Comparator.comparingInt(DocumentVersion::getVersionNumber)));
+        when(repository.findByDocumentIdAndVersionNumberBetweenOrderByVersionNumberAsc(any(), anyInt(), anyInt()))
+            .thenAnswer(invocation -> versions.stream()
+                .filter(version -> version.getVersionNumber() >= (int) invocation.getArgument(1)
+                    && version.getVersionNumber() <= (int) invocation.getArgument(2))
+                .sorted(Comparator.comparingInt(DocumentVersion::getVersionNumber))
+                .toList());
+
+        versionService = new DocumentVersionService(repository, SNAPSHOT_INTERVAL);
+        document = Document.builder()
+            .id(UUID.randomUUID())
+            .title("Handbook")
+            .updatedAt(LocalDateTime.now())
+            .updatedBy(UUID.randomUUID())
+            .build();
+    }
+
+    @Test
+    void reconstructsEveryVersionAcrossSnapshots() {
+        List<String> contents = new ArrayList<>();
+        String content = "";
+        for (int i = 0; i < 3 * SNAPSHOT_INTERVAL + 2; i++) {
+            content = content + "paragraph " + i + "\n";
+            if (i % 3 == 0) {
+                content = content.replace("paragraph 0\n", "intro " + i + "\n");
+            }
+            contents.add(content);
+            update(content);
+        }
+
+        for (int versionNumber = 1; versionNumber <= contents.size(); versionNumber++) {
+            assertEquals(contents.get(versionNumber - 1),
+                versionService.getVersion(document.getId(), versionNumber).getContent(),
+                "version " + versionNumber);
+        }
+        assertTrue(find(SNAPSHOT_INTERVAL + 1).orElseThrow().isSnapshot());
+        assertFalse(find(SNAPSHOT_INTERVAL + 2).orElseThrow().isSnapshot());
+    }
+
+    @Test
+    void reconstructsAcrossClearedContent() {
+        update("first\n");
+        update(null);
+        update("third\n");
+        update("third\nfourth\n");
+
+        assertEquals("first\n", versionService.getVersion(document.getId(), 1).getContent());
+        assertEquals(null, versionService.getVersion(document.getId(), 2).getContent());
+        assertEquals("third\n", versionService.getVersion(document.getId(), 3).getContent());
+        assertEquals("third\nfourth\n", versionService.getVersion(document.getId(), 4).getContent());
+    }
+
+    @Test
+    void writesBaselineForDocumentsThatPredateVersioning() {
+        document.setContent("before versioning\n");
+        DocumentVersion previousState = versionService.captureState(document);
+        document.setContent("before versioning\nafter\n");
+        versionService.recordVersion(document, previousState);
+
+        assertEquals(2, versions.size());
+        assertTrue(find(1).orElseThrow().isSnapshot());
+        assertEquals("before versioning\n", versionService.getVersion(document.getId(), 1).getContent());
+        assertEquals("before versioning\nafter\n", versionService.getVersion(document.getId(), 2).getContent());
+    }
+
+    private void update(String content) {
+        DocumentVersion previousState = versions.isEmpty() ? null : versionService.captureState(document);
+        document.setContent(content);
+        versionService.recordVersion(document, previousState);
+    }
+
+    private Optional<DocumentVersion> find(int versionNumber) {
+        return versions.stream().filter(version -> version.getVersionNumber() == versionNumber).findFirst();
+    }
+}
@@ -0,0 +1,53 @@
+// k6 load test for dms-document-service read paths at high concurrency.
+//
+// Run it once per thread mode against the same data and compare http_reqs/s and latencies:
+//   VIRTUAL_THREADS_ENABLED=false -> k6 run -e DOCUMENT_IDS=<id,id,...> load-tests/document-reads.js
+//   VIRTUAL_THREADS_ENABLED=true  -> k6 run -e DOCUMENT_IDS=<id,id,...> load-tests/document-reads.js
+//
+// Requests go straight to the service with the headers the gateway would add.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const baseUrl = __ENV.BASE_URL || 'http://localhost:8083';
+const documentIds = (__ENV.DOCUMENT_IDS || '').split(',').filter((id) => id.length > 0);
+const maxVus = parseInt(__ENV.MAX_VUS || '2000', 10);
+
+const headers = {
+  'X-User-Id': __ENV.USER_ID || '00000000-0000-0000-0000-000000000001',
+  'X-User-Role': 'admin',
+};
+
+export const options = {
+  scenarios: {
+    reads: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: Math.floor(maxVus / 4) },
+        { duration: '30s', target: Math.floor(maxVus / 2) },
+        { duration: '1m', target: maxVus },
+        { duration: '2m', target: maxVus },
+        { duration: '15s', target: 0 },
+      ],
+      gracefulRampDown: '10s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+  if (documentIds.length === 0) {
+    throw new Error('Pass existing document ids with -e DOCUMENT_IDS=<id,id,...>');
+  }
+}
+
+export default function () {
+  const id = documentIds[Math.floor(Math.random() * documentIds.length)];
+  const single = http.get(`${baseUrl}/api/documents/${id}`, { headers, tags: { endpoint: 'single' } });
+  check(single, { 'single read ok': (response) => response.status === 200 });
+
+  if (Math.random() < 0.1) {
+    const list = http.get(`${baseUrl}/api/documents`, { headers, tags: { endpoint: 'list' } });
+    check(list, { 'list ok': (response) => response.status === 200 });
+  }
+}